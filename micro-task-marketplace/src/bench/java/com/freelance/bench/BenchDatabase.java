@@ -0,0 +1,144 @@
+package com.freelance.bench;
+
+import com.freelance.utils.MigrationRunner;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+/**
+ * Local stand-in for MySQL: an in-memory H2 database in MySQL mode, built by the app's own migrations
+ * and filled with synthetic data. Must be started before anything touches DBConnection,
+ * because the pool reads its db.* system properties once.
+ */
+public class BenchDatabase {
+    public static final String URL = "jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,USER;DB_CLOSE_DELAY=-1";
+
+    private static final String[] SKILLS = {"Java", "SQL", "HTML", "CSS", "JavaScript", "Python", "React", "Spring", "Docker", "AWS"};
+
+    public static void configure() {
+        System.setProperty("db.url", URL);
+        System.setProperty("db.user", "sa");
+        System.setProperty("db.password", "");
+        // H2 rejects MySQL's Integer.MIN_VALUE "streaming" fetch size
+        System.setProperty("db.streamingFetchSize", "256");
+    }
+
+    /** Recreates the schema and seeds users, tasks (with applications) and messages for every task. */
+    public static void seed(int users, int tasks, int messagesPerTask) throws SQLException {
+        configure();
+        seed(URL, users, tasks, messagesPerTask);
+    }
+
+    /** Same data in another in-memory database, e.g. a stand-in replica. */
+    public static void seed(String url, int users, int tasks, int messagesPerTask) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+            MigrationRunner.migrate(conn);
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO users (name, email, password, role, bio, skills) VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= users; i++) {
+                    ps.setString(1, "User " + i);
+                    ps.setString(2, "user" + i + "@example.com");
+                    ps.setString(3, "secret" + i);
+                    ps.setString(4, i % 3 == 0 ? "CLIENT" : i % 3 == 1 ? "FREELANCER" : "BOTH");
+                    ps.setString(5, "Synthetic bio for user " + i);
+                    ps.setString(6, skills(i, 3));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            long now = System.currentTimeMillis();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO tasks (client_id, title, description, budget, deadline, skills_required, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= tasks; i++) {
+                    ps.setInt(1, 1 + i % users);
+                    ps.setString(2, "Task " + i + ": build a " + SKILLS[i % SKILLS.length] + " feature");
+                    ps.setString(3, "Looking for someone to help with " + SKILLS[i % SKILLS.length] + " and "
+                            + SKILLS[(i + 3) % SKILLS.length] + " work on an existing project. Task number " + i + ".");
+                    ps.setDouble(4, 10 + (i * 37) % 990);
+                    ps.setDate(5, new Date(now + (i % 60) * 86_400_000L));
+                    ps.setString(6, skills(i, 2));
+                    ps.setString(7, i % 5 == 0 ? "ASSIGNED" : "OPEN");
+                    ps.setTimestamp(8, new Timestamp(now - (tasks - i) * 60_000L));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO applications (task_id, freelancer_id, proposal_text, bid_amount) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= tasks; i++) {
+                    for (int a = 0; a < 3; a++) {
+                        ps.setInt(1, i);
+                        ps.setInt(2, 1 + (i + a) % users);
+                        ps.setString(3, "I can do this");
+                        ps.setDouble(4, 5 + (i * 7 + a * 13) % 500);
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO messages (task_id, sender_id, receiver_id, message) VALUES (?, ?, ?, ?)")) {
+                for (int t = 1; t <= tasks; t++) {
+                    for (int m = 0; m < messagesPerTask; m++) {
+                        int a = 1 + t % users;
+                        int b = 1 + (t + 1) % users;
+                        ps.setInt(1, t);
+                        ps.setInt(2, m % 2 == 0 ? a : b);
+                        ps.setInt(3, m % 2 == 0 ? b : a);
+                        ps.setString(4, "Message " + m + " about task " + t + ", when can you start?");
+                        ps.addBatch();
+                    }
+                    if (t % 100 == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+
+    /** URL of another named in-memory database with the same settings as URL. */
+    public static String urlFor(String name) {
+        return URL.replace("mem:bench;", "mem:" + name + ";");
+    }
+
+    /** Appends count messages to one task's conversation. */
+    public static void seedMessages(int taskId, int count) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO messages (task_id, sender_id, receiver_id, message) VALUES (?, ?, ?, ?)")) {
+            for (int m = 0; m < count; m++) {
+                ps.setInt(1, taskId);
+                ps.setInt(2, m % 2 == 0 ? 1 : 2);
+                ps.setInt(3, m % 2 == 0 ? 2 : 1);
+                ps.setString(4, "Message " + m + ": here is an update on the work, let me know what you think.");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static String skills(int seed, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(SKILLS[(seed + i * 3) % SKILLS.length]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.freelance.bench;
+
+import com.freelance.models.Message;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Chat JSON serialization at different history sizes: Gson String building vs streaming JsonWriter, plain and gzip. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatJsonBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int historySize;
+
+    private final Gson gson = new Gson();
+    private final TypeAdapter<Timestamp> timestampAdapter = gson.getAdapter(Timestamp.class);
+    private List<Message> history;
+
+    @Setup
+    public void setUp() {
+        history = new ArrayList<>(historySize);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < historySize; i++) {
+            Message m = new Message(1, i % 2 == 0 ? 1 : 2, i % 2 == 0 ? 2 : 1,
+                    "Message " + i + ": here is an update on the work, let me know what you think.");
+            m.setMsgId(i + 1);
+            m.setTimestamp(new Timestamp(now + i * 1000L));
+            m.setSenderName(i % 2 == 0 ? "Alice" : "Bob");
+            history.add(m);
+        }
+    }
+
+    @Benchmark
+    public int gsonToJsonString() {
+        String json = gson.toJson(history);
+        return json.length();
+    }
+
+    @Benchmark
+    public void streamingJsonWriter() throws IOException {
+        write(new NullOutputStream());
+    }
+
+    @Benchmark
+    public void streamingJsonWriterGzip() throws IOException {
+        write(new GZIPOutputStream(new NullOutputStream(), 8192));
+    }
+
+    private void write(OutputStream os) throws IOException {
+        try (JsonWriter json = new JsonWriter(new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 8192))) {
+            json.beginArray();
+            for (Message m : history) {
+                json.beginObject();
+                json.name("msgId").value(m.getMsgId());
+                json.name("taskId").value(m.getTaskId());
+                json.name("senderId").value(m.getSenderId());
+                json.name("receiverId").value(m.getReceiverId());
+                json.name("message").value(m.getMessage());
+                json.name("timestamp");
+                timestampAdapter.write(json, m.getTimestamp());
+                json.name("senderName").value(m.getSenderName());
+                json.endObject();
+            }
+            json.endArray();
+        }
+    }
+
+    static final class NullOutputStream extends OutputStream {
+        public void write(int b) { }
+        public void write(byte[] b, int off, int len) { }
+    }
+}
@@ -0,0 +1,69 @@
+package com.freelance.bench;
+
+import com.freelance.dao.MessageDAO;
+import com.freelance.dao.TaskDAO;
+import com.freelance.models.Message;
+import com.freelance.models.Task;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Row mapping cost of the DAOs: query + ResultSet -> Task/Message against the H2 stand-in.
+ * Uses the uncached DAO paths so the numbers reflect mapping, not the task cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoMappingBenchmark {
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    private TaskDAO taskDAO;
+    private MessageDAO messageDAO;
+
+    @Setup
+    public void setUp() throws Exception {
+        // One task carries the whole chat history so getMessages returns `rows` messages
+        BenchDatabase.seed(50, rows, 0);
+        BenchDatabase.seedMessages(1, rows);
+        taskDAO = new TaskDAO();
+        messageDAO = new MessageDAO();
+    }
+
+    @Benchmark
+    public List<Task> mapAllTasks() {
+        return taskDAO.getAllTasks();
+    }
+
+    @Benchmark
+    public void streamAllTasks(Blackhole bh) {
+        taskDAO.forEachTask(null, bh::consume);
+    }
+
+    @Benchmark
+    public List<Message> mapMessages() {
+        return messageDAO.getMessages(1);
+    }
+
+    @Benchmark
+    public int streamMessages(Blackhole bh) throws Exception {
+        return messageDAO.streamMessagesSince(1, 0, Integer.MAX_VALUE,
+                (msgId, taskId, senderId, receiverId, text, timestamp, senderName) -> bh.consume(text));
+    }
+}
@@ -0,0 +1,158 @@
+package com.freelance.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.AsyncContext;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Minimal in-memory request/response objects so servlet handlers can be driven without a container.
+ * Only what the servlets in this project call is implemented; forwards to JSPs are no-ops.
+ */
+public class FakeHttp {
+
+    public static class Request {
+        final Map<String, String> params = new HashMap<>();
+        final Map<String, String> headers = new HashMap<>();
+        final Map<String, Object> attributes = new HashMap<>();
+        final Map<String, Object> sessionAttributes = new HashMap<>();
+        String method = "GET";
+        String path = "/";
+        Runnable onAsyncDone;
+
+        public Request method(String method) { this.method = method; return this; }
+        public Request path(String path) { this.path = path; return this; }
+        public Request param(String name, Object value) { params.put(name, String.valueOf(value)); return this; }
+        public Request header(String name, String value) { headers.put(name.toLowerCase(), value); return this; }
+        public Request sessionAttribute(String name, Object value) { sessionAttributes.put(name, value); return this; }
+        /** Lets the servlet go async; the callback runs when it completes or dispatches to a view. */
+        public Request async(Runnable onDone) { this.onAsyncDone = onDone; return this; }
+
+        public HttpServletRequest build() {
+            HttpSession session = (HttpSession) Proxy.newProxyInstance(FakeHttp.class.getClassLoader(),
+                    new Class<?>[]{HttpSession.class}, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "getAttribute": return sessionAttributes.get((String) a[0]);
+                            case "setAttribute": sessionAttributes.put((String) a[0], a[1]); return null;
+                            case "removeAttribute": sessionAttributes.remove((String) a[0]); return null;
+                            case "getId": return "bench-session";
+                            default: return null;
+                        }
+                    });
+            RequestDispatcher dispatcher = (RequestDispatcher) Proxy.newProxyInstance(FakeHttp.class.getClassLoader(),
+                    new Class<?>[]{RequestDispatcher.class}, (p, m, a) -> null);
+            AsyncContext[] async = new AsyncContext[1];
+            return (HttpServletRequest) Proxy.newProxyInstance(FakeHttp.class.getClassLoader(),
+                    new Class<?>[]{HttpServletRequest.class}, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "getMethod": return method;
+                            case "getParameter": return params.get((String) a[0]);
+                            case "getHeader": return headers.get(((String) a[0]).toLowerCase());
+                            case "getHeaders": {
+                                String h = headers.get(((String) a[0]).toLowerCase());
+                                return h == null ? Collections.emptyEnumeration() : Collections.enumeration(Collections.singleton(h));
+                            }
+                            case "getAttribute": return attributes.get((String) a[0]);
+                            case "setAttribute": attributes.put((String) a[0], a[1]); return null;
+                            case "getSession": return session;
+                            case "getRequestDispatcher": return dispatcher;
+                            case "getServletPath": return path;
+                            case "getRequestURI": return path;
+                            case "getContextPath": return "";
+                            case "getProtocol": return "HTTP/1.1";
+                            case "getQueryString": return params.isEmpty() ? null : params.toString();
+                            case "getDateHeader": return -1L;
+                            case "isAsyncSupported": return onAsyncDone != null;
+                            case "isAsyncStarted": return async[0] != null;
+                            case "getAsyncContext": return async[0];
+                            case "startAsync": {
+                                if (onAsyncDone == null || async[0] != null) {
+                                    throw new IllegalStateException("async not supported or already started");
+                                }
+                                async[0] = asyncContext((HttpServletRequest) p);
+                                return async[0];
+                            }
+                            case "getRemoteAddr": return "127.0.0.1";
+                            default: return null;
+                        }
+                    });
+        }
+
+        // JSPs aren't rendered here, so dispatch() ends the request just like complete()
+        private AsyncContext asyncContext(HttpServletRequest request) {
+            return (AsyncContext) Proxy.newProxyInstance(FakeHttp.class.getClassLoader(),
+                    new Class<?>[]{AsyncContext.class}, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "getRequest": return request;
+                            case "complete":
+                            case "dispatch": onAsyncDone.run(); return null;
+                            case "hasOriginalRequestAndResponse": return true;
+                            case "getTimeout": return 0L;
+                            default: return null;
+                        }
+                    });
+        }
+    }
+
+    /** Response whose body goes to a reusable buffer; reset() between invocations. */
+    public static class Response {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+        final Map<String, String> headers = new HashMap<>();
+        int status = 200;
+
+        public void reset() {
+            body.reset();
+            headers.clear();
+            status = 200;
+        }
+
+        public int status() { return status; }
+        public int bodyLength() { return body.size(); }
+        public String header(String name) { return headers.get(name); }
+
+        public HttpServletResponse build() {
+            ServletOutputStream out = new ServletOutputStream() {
+                public void write(int b) { body.write(b); }
+                public void write(byte[] b, int off, int len) { body.write(b, off, len); }
+                public boolean isReady() { return true; }
+                public void setWriteListener(WriteListener listener) { }
+            };
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter((OutputStream) out, StandardCharsets.UTF_8));
+            return (HttpServletResponse) Proxy.newProxyInstance(FakeHttp.class.getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class}, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "getOutputStream": return out;
+                            case "getWriter": return writer;
+                            case "setStatus": status = (Integer) a[0]; return null;
+                            case "getStatus": return status;
+                            case "sendError": status = (Integer) a[0]; return null;
+                            case "sendRedirect": status = 302; headers.put("Location", (String) a[0]); return null;
+                            case "setHeader":
+                            case "addHeader": headers.put((String) a[0], (String) a[1]); return null;
+                            case "getHeader": return headers.get((String) a[0]);
+                            case "containsHeader": return headers.containsKey((String) a[0]);
+                            case "isCommitted": return false;
+                            case "flushBuffer": writer.flush(); return null;
+                            default: return null;
+                        }
+                    });
+        }
+
+        public void flush() throws IOException {
+            body.flush();
+        }
+    }
+}
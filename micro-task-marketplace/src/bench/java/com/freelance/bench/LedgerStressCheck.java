@@ -0,0 +1,146 @@
+package com.freelance.bench;
+
+import com.freelance.models.Transfer;
+import com.freelance.services.LedgerService;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hammers LedgerService with thousands of parallel random transfers (plus multi-transfer batches
+ * and an outside writer bumping wallet versions to force optimistic retries), then checks that
+ * money was conserved, no wallet went negative and every balance equals its ledger history.
+ * Exits with code 1 on any inconsistency. H2 in MySQL mode occasionally hands two concurrent inserts
+ * the same AUTO_INCREMENT value; those batches show up as "rolled back, retrying" lines.
+ *   -Dledger.stress.users=200 -Dledger.stress.transfers=20000 -Dledger.stress.threads=32
+ */
+public class LedgerStressCheck {
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("ledger.stress.users", 200);
+        int transfers = Integer.getInteger("ledger.stress.transfers", 20000);
+        int threads = Integer.getInteger("ledger.stress.threads", 32);
+        BenchDatabase.seed(users, 1, 0);
+        LedgerService ledger = LedgerService.getInstance();
+
+        for (int u = 1; u <= users; u++) {
+            if (!ledger.credit(u, OPENING_BALANCE, "Opening balance")) {
+                throw new IllegalStateException("Could not fund wallet " + u);
+            }
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread outsider = new Thread(() -> bumpVersions(users, running), "outside-writer");
+        outsider.start();
+
+        AtomicInteger remaining = new AtomicInteger(transfers);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (remaining.getAndDecrement() > 0) {
+                    if (random.nextInt(10) == 0) {
+                        // A few all-or-nothing batches spanning several wallets
+                        List<Transfer> batch = new ArrayList<>();
+                        for (int j = 0; j < 4; j++) {
+                            batch.add(randomTransfer(random, users));
+                        }
+                        ledger.apply(batch);
+                    } else {
+                        Transfer t = randomTransfer(random, users);
+                        ledger.transfer(t.getFromUserId(), t.getToUserId(), t.getAmount(), t.getReason());
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        outsider.join();
+
+        System.out.printf("%d calls on %d threads in %.2fs (%.0f/s): %d committed, %d rejected for funds, %d version conflicts retried, %d failed%n",
+                transfers, threads, seconds, transfers / seconds, ledger.getCommittedCount() - users,
+                ledger.getRejectedCount(), ledger.getConflictCount(), ledger.getFailedCount());
+
+        int problems = verify(users);
+        if (problems > 0) {
+            System.err.println(problems + " ledger inconsistencies");
+            System.exit(1);
+        }
+        System.out.println("Ledger consistent");
+    }
+
+    private static Transfer randomTransfer(ThreadLocalRandom random, int users) {
+        int from = 1 + random.nextInt(users);
+        int to = 1 + random.nextInt(users - 1);
+        if (to >= from) {
+            to++;
+        }
+        BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(5000), 2);
+        return new Transfer(from, to, amount, "stress");
+    }
+
+    // Simulates another node touching wallets behind LedgerService's back
+    private static void bumpVersions(int users, AtomicBoolean running) {
+        try (Connection conn = DriverManager.getConnection(BenchDatabase.URL, "sa", "");
+             PreparedStatement ps = conn.prepareStatement("UPDATE wallet SET version = version + 1 WHERE user_id = ?")) {
+            while (running.get()) {
+                ps.setInt(1, 1 + ThreadLocalRandom.current().nextInt(users));
+                ps.executeUpdate();
+                Thread.sleep(1);
+            }
+        } catch (SQLException | InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int verify(int users) throws SQLException {
+        int problems = 0;
+        try (Connection conn = DriverManager.getConnection(BenchDatabase.URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT SUM(balance), MIN(balance), COUNT(*) FROM wallet")) {
+                rs.next();
+                BigDecimal expected = OPENING_BALANCE.multiply(BigDecimal.valueOf(users));
+                if (rs.getBigDecimal(1).compareTo(expected) != 0) {
+                    System.err.println("Total balance " + rs.getBigDecimal(1) + " != " + expected);
+                    problems++;
+                }
+                if (rs.getBigDecimal(2).signum() < 0) {
+                    System.err.println("Negative balance: " + rs.getBigDecimal(2));
+                    problems++;
+                }
+                if (rs.getInt(3) != users) {
+                    System.err.println(rs.getInt(3) + " wallets for " + users + " users");
+                    problems++;
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT w.user_id, w.balance, "
+                    + "COALESCE(SUM(CASE WHEN t.type = 'CREDIT' THEN t.amount ELSE -t.amount END), 0) AS ledger "
+                    + "FROM wallet w LEFT JOIN transactions t ON t.user_id = w.user_id GROUP BY w.user_id, w.balance")) {
+                while (rs.next()) {
+                    if (rs.getBigDecimal("balance").compareTo(rs.getBigDecimal("ledger")) != 0) {
+                        System.err.println("Wallet " + rs.getInt("user_id") + " balance " + rs.getBigDecimal("balance")
+                                + " != ledger " + rs.getBigDecimal("ledger"));
+                        problems++;
+                    }
+                }
+            }
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,521 @@
+package com.freelance.bench;
+
+import com.freelance.controllers.AppContextListener;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.DriverManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.eclipse.jetty.annotations.AnnotationConfiguration;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.webapp.Configuration;
+import org.eclipse.jetty.webapp.FragmentConfiguration;
+import org.eclipse.jetty.webapp.JettyWebXmlConfiguration;
+import org.eclipse.jetty.webapp.MetaInfConfiguration;
+import org.eclipse.jetty.webapp.WebAppContext;
+import org.eclipse.jetty.webapp.WebInfConfiguration;
+import org.eclipse.jetty.webapp.WebXmlConfiguration;
+
+/**
+ * End-to-end load test: boots the whole webapp (listeners, filters, servlets and JSPs, found by
+ * annotation scanning as under jetty:run) in an embedded Jetty on a local port, backed by the
+ * BenchDatabase H2 stand-in, and drives it over real HTTP with a mix of traffic:
+ *   - browsers:  anonymous visitors listing /tasks and opening tasks, with think time between pages
+ *   - chats:     logged-in participants polling /chat?since= every 3 seconds (with If-None-Match,
+ *                like the chat page), each now and then posting a message
+ *   - apply:     bursts of logged-in freelancers applying to open tasks at the same moment
+ *   - logins:    a steady rate of POST /auth logins
+ * After a warm-up, every request's latency is recorded per route; at the end the run writes
+ * requests, errors, throughput and p50/p99/p999 per route as JSON to loadtest.out and stdout.
+ *   mvn -Pbenchmarks test-compile exec:exec@loadtest -Dloadtest.args="-Dloadtest.chats=500"
+ * Knobs (defaults in brackets): loadtest.seconds [60], loadtest.warmupSeconds [10], loadtest.users [2000],
+ * loadtest.tasks [5000], loadtest.messagesPerTask [20], loadtest.browsers [50], loadtest.thinkMs [500],
+ * loadtest.chats [200], loadtest.chatPollMs [3000], loadtest.chatSendEvery [10], loadtest.applyBurst [50],
+ * loadtest.applyEverySeconds [10], loadtest.loginsPerSecond [5], loadtest.serverThreads [200],
+ * loadtest.clientThreads [8], loadtest.dbLatencyMs [0], loadtest.seed [42], plus the app's own -D settings.
+ * Everything is seeded the same way every run, and the traffic mix is drawn from loadtest.seed, so
+ * two runs differ only in the code under test (and the machine).
+ */
+public class LoadTest {
+    private static final String CONTEXT = "/micro-task-marketplace";
+
+    private final int users = Integer.getInteger("loadtest.users", 2000);
+    private final int tasks = Integer.getInteger("loadtest.tasks", 5000);
+    private final int messagesPerTask = Integer.getInteger("loadtest.messagesPerTask", 20);
+    private final int seconds = Integer.getInteger("loadtest.seconds", 60);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+    private final int browsers = Integer.getInteger("loadtest.browsers", 50);
+    private final long thinkMs = Long.getLong("loadtest.thinkMs", 500L);
+    private final int chats = Integer.getInteger("loadtest.chats", 200);
+    private final long chatPollMs = Long.getLong("loadtest.chatPollMs", 3_000L);
+    private final int chatSendEvery = Integer.getInteger("loadtest.chatSendEvery", 10);
+    private final int applyBurst = Integer.getInteger("loadtest.applyBurst", 50);
+    private final int applyEverySeconds = Integer.getInteger("loadtest.applyEverySeconds", 10);
+    private final int loginsPerSecond = Integer.getInteger("loadtest.loginsPerSecond", 5);
+    private final int serverThreads = Integer.getInteger("loadtest.serverThreads", 200);
+    private final int clientThreads = Integer.getInteger("loadtest.clientThreads", 8);
+    private final long dbLatencyMs = Long.getLong("loadtest.dbLatencyMs", 0L);
+    private final long seed = Long.getLong("loadtest.seed", 42L);
+
+    // Apply bursts, logins and start-up jitter; each browser has its own stream
+    private final Random mix = new Random(seed);
+    private final Map<String, Route> routes = new TreeMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean recording;
+    private volatile boolean running = true;
+
+    private HttpClient client;
+    private ScheduledExecutorService timers;
+    private String base;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+    }
+
+    private void run() throws Exception {
+        BenchDatabase.seed(users, tasks, messagesPerTask);
+        if (dbLatencyMs > 0) {
+            DriverManager.registerDriver(new VirtualThreadLoadCheck.SlowDriver(dbLatencyMs));
+            System.setProperty("db.url", VirtualThreadLoadCheck.SlowDriver.PREFIX + BenchDatabase.URL);
+        }
+        // BenchDatabase already ran the migrations
+        System.setProperty("db.migrate", "false");
+
+        Server server = startServer();
+        base = "http://127.0.0.1:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort() + CONTEXT;
+        ExecutorService clientPool = Executors.newFixedThreadPool(clientThreads);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(clientPool)
+                .build();
+        timers = Executors.newScheduledThreadPool(2);
+
+        try {
+            System.out.println("Load test against " + base);
+            // Sessions are set up before the clock starts; their logins aren't part of the results
+            List<String> chatSessions = login(chatUsers());
+            List<String> applySessions = login(applyUsers());
+
+            for (int b = 0; b < browsers; b++) {
+                Random random = new Random(seed * 31 + b);
+                timers.schedule(() -> browse(random), jitter(thinkMs), TimeUnit.MILLISECONDS);
+            }
+            for (int c = 0; c < chats; c++) {
+                startChat(c, chatSessions.get(c));
+            }
+            if (applyBurst > 0) {
+                timers.scheduleAtFixedRate(() -> applyBurst(applySessions), applyEverySeconds, applyEverySeconds, TimeUnit.SECONDS);
+            }
+            if (loginsPerSecond > 0) {
+                timers.scheduleAtFixedRate(this::login, 0, 1_000_000L / loginsPerSecond, TimeUnit.MICROSECONDS);
+            }
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+            recording = true;
+            long start = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            recording = false;
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            running = false;
+            timers.shutdownNow();
+            long drainUntil = System.currentTimeMillis() + 10_000;
+            while (inFlight.get() > 0 && System.currentTimeMillis() < drainUntil) {
+                Thread.sleep(50);
+            }
+            report(elapsed);
+        } finally {
+            running = false;
+            timers.shutdownNow();
+            clientPool.shutdownNow();
+            server.stop();
+        }
+    }
+
+    private Server startServer() throws Exception {
+        QueuedThreadPool threads = new QueuedThreadPool(serverThreads);
+        threads.setName("jetty");
+        Server server = new Server(threads);
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost("127.0.0.1");
+        connector.setPort(0);
+        server.addConnector(connector);
+
+        WebAppContext webapp = new WebAppContext();
+        webapp.setContextPath(CONTEXT);
+        webapp.setResourceBase(System.getProperty("loadtest.webapp", "src/main/webapp"));
+        webapp.setTempDirectory(Files.createTempDirectory("loadtest-jsp").toFile());
+        // The app's classes stay on this JVM's classpath (parent first, so they share the statics the
+        // harness configured) and are scanned for @WebServlet/@WebFilter/@WebListener as if they were
+        // WEB-INF/classes; the JSP engine's jar is scanned for its initializer
+        Resource classes = Resource.newResource(AppContextListener.class.getProtectionDomain().getCodeSource().getLocation());
+        webapp.setAttribute(WebInfConfiguration.CONTAINER_JAR_PATTERN, ".*/apache-jsp-[^/]*\\.jar$");
+        webapp.setParentLoaderPriority(true);
+        webapp.setConfigurations(new Configuration[]{
+                new WebInfConfiguration() {
+                    protected List<Resource> findClassDirs(WebAppContext context) {
+                        return Collections.singletonList(classes);
+                    }
+                },
+                new WebXmlConfiguration(), new MetaInfConfiguration(), new FragmentConfiguration(),
+                new AnnotationConfiguration(), new JettyWebXmlConfiguration()});
+        server.setHandler(webapp);
+        server.start();
+        if (webapp.getUnavailableException() != null) {
+            server.stop();
+            throw new IllegalStateException("Webapp failed to start", webapp.getUnavailableException());
+        }
+        return server;
+    }
+
+    // ---- scenarios ----
+
+    // Seeded participants of the first `chats` conversations: task t is between users 1 + t % users and 1 + (t + 1) % users
+    private List<Integer> chatUsers() {
+        List<Integer> ids = new ArrayList<>(chats);
+        for (int c = 0; c < chats; c++) {
+            ids.add(1 + chatTask(c) % users);
+        }
+        return ids;
+    }
+
+    // Freelancers and BOTH users (id % 3 != 0)
+    private List<Integer> applyUsers() {
+        List<Integer> ids = new ArrayList<>(applyBurst);
+        for (int id = 1; id <= users && ids.size() < applyBurst; id++) {
+            if (id % 3 != 0) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private int chatTask(int chat) {
+        return 1 + chat % tasks;
+    }
+
+    private void browse(Random random) {
+        if (!running) {
+            return;
+        }
+        int roll = random.nextInt(100);
+        String path;
+        String route;
+        if (roll < 30) {
+            path = "/tasks?action=list";
+            route = "tasks.list";
+        } else if (roll < 50) {
+            path = "/tasks?action=list&status=OPEN&minBudget=" + (100 * random.nextInt(5)) + "&limit=20";
+            route = "tasks.list";
+        } else {
+            path = "/tasks?action=view&id=" + (1 + random.nextInt(tasks));
+            route = "tasks.view";
+        }
+        send(route, get(path, null).build(), r -> after(thinkMs, () -> browse(random)));
+    }
+
+    private void startChat(int chat, String session) {
+        int taskId = chatTask(chat);
+        int receiverId = 1 + (taskId + 1) % users;
+        int[] lastMsgId = {0};
+        String[] etag = {null};
+        int[] polls = {0};
+        Runnable[] poll = new Runnable[1];
+        poll[0] = () -> {
+            HttpRequest.Builder request = get("/chat?taskId=" + taskId + "&since=" + lastMsgId[0], session);
+            if (etag[0] != null) {
+                request.header("If-None-Match", etag[0]);
+            }
+            send("chat.poll", request.build(), r -> {
+                if (r != null && r.statusCode() == 200) {
+                    etag[0] = r.headers().firstValue("ETag").orElse(null);
+                    lastMsgId[0] = Math.max(lastMsgId[0], lastMsgId(r.body()));
+                }
+                if (chatSendEvery > 0 && ++polls[0] % chatSendEvery == 0) {
+                    send("chat.send", post("/chat", session, "taskId", taskId, "receiverId", receiverId,
+                            "message", "Load test message " + polls[0]), s -> after(chatPollMs, poll[0]));
+                } else {
+                    after(chatPollMs, poll[0]);
+                }
+            });
+        };
+        // The page's first request loads the whole conversation; polling continues from its last message
+        timers.schedule(() -> send("chat.history", get("/chat?taskId=" + taskId, session).build(), r -> {
+            if (r != null && r.statusCode() == 200) {
+                lastMsgId[0] = lastMsgId(r.body());
+            }
+            after(chatPollMs, poll[0]);
+        }), jitter(chatPollMs), TimeUnit.MILLISECONDS);
+    }
+
+    private void applyBurst(List<String> sessions) {
+        for (String session : sessions) {
+            // Seeded tasks not divisible by 5 are OPEN
+            int taskId = 1 + mix.nextInt(tasks);
+            if (taskId % 5 == 0) {
+                taskId--;
+            }
+            send("apply", post("/apply", session, "taskId", Math.max(1, taskId),
+                    "proposal", "Load test proposal", "bidAmount", 10 + mix.nextInt(500)), LoadTest::redirectedWithoutError, r -> { });
+        }
+    }
+
+    private void login() {
+        int userId = 1 + mix.nextInt(users);
+        send("auth.login", loginRequest(userId), LoadTest::redirectedWithoutError, r -> { });
+    }
+
+    // The form posts answer with a redirect, carrying error=... when the action failed; a failed
+    // login instead renders the login page again with a 200
+    private static boolean redirectedWithoutError(HttpResponse<String> response) {
+        return response.statusCode() == 302 && !response.headers().firstValue("Location").orElse("").contains("error=");
+    }
+
+    private List<String> login(List<Integer> userIds) throws Exception {
+        List<String> sessions = new ArrayList<>(userIds.size());
+        for (int userId : userIds) {
+            HttpResponse<String> response = client.send(loginRequest(userId), HttpResponse.BodyHandlers.ofString());
+            String session = response.headers().allValues("Set-Cookie").stream()
+                    .filter(c -> c.startsWith("JSESSIONID="))
+                    .map(c -> c.split(";", 2)[0])
+                    .findFirst().orElse(null);
+            if (response.statusCode() != 302 || session == null) {
+                throw new IllegalStateException("Login of user " + userId + " failed with status " + response.statusCode());
+            }
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    private HttpRequest loginRequest(int userId) {
+        return post("/auth", null, "action", "login", "email", "user" + userId + "@example.com", "password", "secret" + userId);
+    }
+
+    // ---- plumbing ----
+
+    private HttpRequest.Builder get(String path, String session) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(30)).GET();
+        if (session != null) {
+            request.header("Cookie", session);
+        }
+        return request;
+    }
+
+    private HttpRequest post(String path, String session, Object... form) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < form.length; i += 2) {
+            if (i > 0) {
+                body.append('&');
+            }
+            body.append(form[i]).append('=').append(URLEncoder.encode(String.valueOf(form[i + 1]), StandardCharsets.UTF_8));
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+        if (session != null) {
+            request.header("Cookie", session);
+        }
+        return request.build();
+    }
+
+    private void send(String name, HttpRequest request, Consumer<HttpResponse<String>> then) {
+        send(name, request, r -> r.statusCode() < 400, then);
+    }
+
+    /**
+     * Sends the request, records its latency under route (as an error unless ok accepts the response),
+     * then hands the response, or null if the request itself failed, to then.
+     */
+    private void send(String name, HttpRequest request, Predicate<HttpResponse<String>> ok, Consumer<HttpResponse<String>> then) {
+        if (!running) {
+            return;
+        }
+        Route route = route(name);
+        boolean counted = recording;
+        inFlight.incrementAndGet();
+        long t0 = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> response = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        response.whenComplete((r, err) -> {
+            long nanos = System.nanoTime() - t0;
+            // Only requests both started and finished inside the measured window count
+            if (counted && recording) {
+                route.record(nanos, err != null ? 0 : r.statusCode(), err == null && ok.test(r));
+            }
+            inFlight.decrementAndGet();
+            try {
+                then.accept(err != null ? null : r);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void after(long delayMs, Runnable next) {
+        if (running) {
+            try {
+                timers.schedule(next, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+
+    private long jitter(long maxMs) {
+        return (long) (mix.nextDouble() * maxMs);
+    }
+
+    private static int lastMsgId(String json) {
+        int last = 0;
+        JsonElement parsed = JsonParser.parseString(json);
+        if (parsed.isJsonArray()) {
+            JsonArray messages = parsed.getAsJsonArray();
+            for (JsonElement m : messages) {
+                last = Math.max(last, m.getAsJsonObject().get("msgId").getAsInt());
+            }
+        }
+        return last;
+    }
+
+    private synchronized Route route(String name) {
+        return routes.computeIfAbsent(name, n -> new Route());
+    }
+
+    private void report(double elapsed) throws Exception {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("seconds", seconds);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("users", users);
+        config.put("tasks", tasks);
+        config.put("messagesPerTask", messagesPerTask);
+        config.put("browsers", browsers);
+        config.put("thinkMs", thinkMs);
+        config.put("chats", chats);
+        config.put("chatPollMs", chatPollMs);
+        config.put("chatSendEvery", chatSendEvery);
+        config.put("applyBurst", applyBurst);
+        config.put("applyEverySeconds", applyEverySeconds);
+        config.put("loginsPerSecond", loginsPerSecond);
+        config.put("serverThreads", serverThreads);
+        config.put("dbLatencyMs", dbLatencyMs);
+        config.put("seed", seed);
+
+        Map<String, Object> byRoute = new LinkedHashMap<>();
+        long total = 0;
+        long errors = 0;
+        synchronized (this) {
+            for (Map.Entry<String, Route> e : routes.entrySet()) {
+                Map<String, Object> summary = e.getValue().summary(elapsed);
+                byRoute.put(e.getKey(), summary);
+                total += (Long) summary.get("requests");
+                errors += (Long) summary.get("errors");
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("config", config);
+        result.put("elapsedSeconds", round(elapsed));
+        result.put("requests", total);
+        result.put("errors", errors);
+        result.put("throughputPerSecond", round(total / elapsed));
+        result.put("routes", byRoute);
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(result);
+        System.out.println(json);
+        String out = System.getProperty("loadtest.out");
+        if (out != null && !out.isEmpty()) {
+            Path path = Paths.get(out);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.write(path, json.getBytes(StandardCharsets.UTF_8));
+            System.out.println("Wrote " + path);
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /** Every latency of one route, kept exactly so p999 is a real sample and not a bucket bound. */
+    private static final class Route {
+        private long[] nanos = new long[1024];
+        private int count;
+        private long errors;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        synchronized void record(long latency, int status, boolean ok) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latency;
+            if (!ok) {
+                errors++;
+            }
+            statuses.merge(status, 1L, Long::sum);
+        }
+
+        synchronized Map<String, Object> summary(double elapsed) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            long sum = 0;
+            for (long n : sorted) {
+                sum += n;
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", (long) count);
+            summary.put("errors", errors);
+            summary.put("throughputPerSecond", round(count / elapsed));
+            summary.put("meanMs", round(count == 0 ? 0 : sum / 1e6 / count));
+            summary.put("p50Ms", percentile(sorted, 0.50));
+            summary.put("p99Ms", percentile(sorted, 0.99));
+            summary.put("p999Ms", percentile(sorted, 0.999));
+            summary.put("maxMs", round(count == 0 ? 0 : sorted[count - 1] / 1e6));
+            // "failed": no response at all (connection error or timeout)
+            Map<String, Long> byStatus = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Long> e : statuses.entrySet()) {
+                byStatus.put(e.getKey() == 0 ? "failed" : String.valueOf(e.getKey()), e.getValue());
+            }
+            summary.put("statuses", byStatus);
+            return summary;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return round(sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * p) - 1)] / 1e6);
+        }
+    }
+}
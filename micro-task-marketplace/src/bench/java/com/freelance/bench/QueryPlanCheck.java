@@ -0,0 +1,103 @@
+package com.freelance.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * EXPLAINs the DAO hot-path queries and fails (exit code 1) if any of them reads a whole table
+ * or sorts rows itself instead of walking an index in order. Keep the SQL in step with the DAOs.
+ *
+ * In the benchmarks profile it runs against the seeded H2 database, where only table access is
+ * checked: H2's planner never uses an index for ORDER BY across a join, so the filesort check is
+ * only meaningful on MySQL. Point it at a migrated MySQL schema for the full check:
+ *   mvn -Pbenchmarks verify -Dplan.url=jdbc:mysql://localhost:3306/freelance_marketplace -Dplan.password=...
+ */
+public class QueryPlanCheck {
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("plan.url", "");
+        String user = System.getProperty("plan.user", "root");
+        String password = System.getProperty("plan.password", "");
+        if (url.isEmpty()) {
+            BenchDatabase.seed(200, 2000, 5);
+            url = BenchDatabase.URL;
+            user = "sa";
+            password = "";
+        }
+        int failures = 0;
+        boolean mysql;
+        try (Connection conn = DriverManager.getConnection(url, user, password)) {
+            mysql = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+
+            failures += check(conn, mysql, "MessageDAO.getMessages",
+                    "SELECT m.*, u.name as sender_name FROM messages m JOIN users u ON m.sender_id = u.id WHERE m.task_id = 7 ORDER BY m.msg_id ASC",
+                    "messages", "m");
+            failures += check(conn, mysql, "MessageDAO.getMessagesSince",
+                    "SELECT m.*, u.name as sender_name FROM messages m JOIN users u ON m.sender_id = u.id "
+                            + "WHERE m.task_id = 7 AND m.msg_id > 20 ORDER BY m.msg_id ASC LIMIT 500",
+                    "messages", "m");
+            failures += check(conn, mysql, "TaskDAO.getTasksPage(status)",
+                    "SELECT t.*, u.name as client_name FROM tasks t JOIN users u ON t.client_id = u.id WHERE 1=1 AND t.status = 'OPEN' "
+                            + "ORDER BY t.created_at DESC, t.task_id DESC LIMIT 21",
+                    "tasks", "t");
+            failures += check(conn, mysql, "TaskDAO.getTasksPage(status, cursor)",
+                    "SELECT t.*, u.name as client_name FROM tasks t JOIN users u ON t.client_id = u.id WHERE 1=1 AND t.status = 'OPEN' "
+                            + "AND (t.created_at < TIMESTAMP '2030-01-01 00:00:00' OR (t.created_at = TIMESTAMP '2030-01-01 00:00:00' AND t.task_id < 1000)) "
+                            + "ORDER BY t.created_at DESC, t.task_id DESC LIMIT 21",
+                    "tasks", "t");
+            failures += check(conn, mysql, "TaskDAO.getTasksPage",
+                    "SELECT t.*, u.name as client_name FROM tasks t JOIN users u ON t.client_id = u.id WHERE 1=1 "
+                            + "ORDER BY t.created_at DESC, t.task_id DESC LIMIT 21",
+                    "tasks", "t");
+            failures += check(conn, mysql, "TaskDAO.getTaskById",
+                    "SELECT t.*, u.name as client_name FROM tasks t JOIN users u ON t.client_id = u.id WHERE t.task_id = 7",
+                    "tasks", "t");
+            failures += check(conn, mysql, "UserDAO.loginUser",
+                    "SELECT * FROM users WHERE email = 'user7@example.com' AND password = 'secret7'",
+                    "users", "users");
+            failures += check(conn, mysql, "applications by task, cheapest bid first",
+                    "SELECT task_id, bid_amount FROM applications WHERE task_id = 7 ORDER BY bid_amount ASC",
+                    "applications", "applications");
+        }
+        if (failures > 0) {
+            System.err.println(failures + " query plan(s) need attention");
+            System.exit(1);
+        }
+        System.out.println(mysql ? "All query plans use indexes" : "All query plans use indexes (sort order is only checked on MySQL)");
+    }
+
+    /** Returns 1 if the plan scans the table (MySQL reports it under its alias) or needs an explicit sort, 0 otherwise. */
+    private static int check(Connection conn, boolean mysql, String name, String sql, String table, String alias) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        boolean scan = false;
+        boolean filesort = false;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                if (mysql) {
+                    // One row per table: type ALL is a full scan, "Using filesort" is a sort outside the index
+                    String extra = String.valueOf(rs.getString("Extra"));
+                    plan.append(rs.getString("table")).append(' ').append(rs.getString("type")).append(' ')
+                            .append(rs.getString("key")).append(' ').append(extra).append('\n');
+                    scan |= alias.equals(rs.getString("table")) && "ALL".equals(rs.getString("type"));
+                    filesort |= extra.contains("filesort");
+                } else {
+                    // H2 annotates each table access: "/* public.tasks.tableScan */" vs "/* public.idx_...: ... */"
+                    String text = rs.getString(1);
+                    plan.append(text).append('\n');
+                    scan |= text.toLowerCase(Locale.ROOT).contains("public." + table + ".tablescan");
+                }
+            }
+        }
+        boolean ok = !scan && !filesort;
+        System.out.println((ok ? "OK   " : "FAIL ") + name + (scan ? " [full scan of " + table + "]" : "") + (filesort ? " [filesort]" : ""));
+        if (!ok) {
+            System.out.println(plan.toString().trim().replaceAll("(?m)^", "       "));
+        }
+        return ok ? 0 : 1;
+    }
+}
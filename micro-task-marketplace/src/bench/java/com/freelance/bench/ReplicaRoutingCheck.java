@@ -0,0 +1,152 @@
+package com.freelance.bench;
+
+import com.freelance.dao.MessageDAO;
+import com.freelance.models.Message;
+import com.freelance.utils.DBConnection;
+import com.freelance.utils.ReadConsistency;
+import com.freelance.utils.ReplicaRouter;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.Callable;
+import javax.servlet.http.HttpServletRequest;
+import org.h2.tools.Server;
+
+/**
+ * Read/write splitting against three local databases: the usual in-memory primary plus two H2
+ * instances served over TCP as replicas. The replicas never receive the primary's writes, so they
+ * behave like replicas with unbounded lag, which makes every routing decision visible in the data:
+ *   - reads round-robin over the replicas,
+ *   - a session that just wrote reads from the primary (and sees its write) until maxLagMs passes,
+ *   - other sessions read recently changed data from the primary too, then go back to the replicas,
+ *   - a stopped replica is taken out of rotation and put back once it answers again.
+ * Exits with code 1 on any failed expectation.
+ */
+public class ReplicaRoutingCheck {
+    private static final long MAX_LAG_MS = 1_000;
+    private static final long HEALTH_CHECK_MS = 200;
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        BenchDatabase.seed(20, 50, 3);
+        Server[] servers = new Server[2];
+        int[] ports = new int[2];
+        StringBuilder replicaUrls = new StringBuilder();
+        for (int i = 0; i < 2; i++) {
+            String name = "bench_replica" + (i + 1);
+            BenchDatabase.seed(BenchDatabase.urlFor(name), 20, 50, 3);
+            ports[i] = freePort();
+            servers[i] = Server.createTcpServer("-tcpPort", String.valueOf(ports[i])).start();
+            if (i > 0) {
+                replicaUrls.append(',');
+            }
+            replicaUrls.append(tcpUrl(ports[i], name));
+        }
+        System.setProperty("db.replicaUrls", replicaUrls.toString());
+        System.setProperty("db.replica.healthCheckMs", String.valueOf(HEALTH_CHECK_MS));
+        System.setProperty("db.replica.maxLagMs", String.valueOf(MAX_LAG_MS));
+
+        MessageDAO messages = new MessageDAO();
+        ReplicaRouter router = DBConnection.getReplicas();
+        ReplicaRouter.Replica r1 = router.getReplicas().get(0);
+        ReplicaRouter.Replica r2 = router.getReplicas().get(1);
+        HttpServletRequest alice = new FakeHttp.Request().sessionAttribute("user", "alice").build();
+        HttpServletRequest bob = new FakeHttp.Request().sessionAttribute("user", "bob").build();
+
+        // Outside a request nothing is offloaded
+        long primary = DBConnection.getPrimaryReadCount();
+        messages.getMessages(1);
+        expect("background read goes to the primary", DBConnection.getPrimaryReadCount() == primary + 1);
+
+        // Round robin
+        long before1 = r1.getReadCount();
+        long before2 = r2.getReadCount();
+        for (int t = 1; t <= 10; t++) {
+            int taskId = t;
+            inRequest(bob, () -> messages.getMessages(taskId));
+        }
+        expect("reads alternate between replicas", r1.getReadCount() - before1 == 5 && r2.getReadCount() - before2 == 5);
+
+        // Read-your-writes: alice posts on task 7
+        Message posted = new Message(7, 1, 2, "Fresh message");
+        inRequest(alice, () -> messages.sendMessage(posted));
+        List<Message> aliceSees = inRequest(alice, () -> messages.getMessages(7));
+        expect("writer reads its own message back", contains(aliceSees, posted.getMsgId()));
+        primary = DBConnection.getPrimaryReadCount();
+        inRequest(alice, () -> messages.getMessages(9));
+        expect("writer's session is pinned to the primary for unrelated reads", DBConnection.getPrimaryReadCount() == primary + 1);
+
+        primary = DBConnection.getPrimaryReadCount();
+        inRequest(bob, () -> messages.getMessages(9));
+        expect("other sessions still use replicas", DBConnection.getPrimaryReadCount() == primary);
+        List<Message> bobSees = inRequest(bob, () -> messages.getMessages(7));
+        expect("recently changed data is read from the primary by everyone", contains(bobSees, posted.getMsgId()));
+
+        Thread.sleep(MAX_LAG_MS + 100);
+        primary = DBConnection.getPrimaryReadCount();
+        inRequest(alice, () -> messages.getMessages(7));
+        inRequest(bob, () -> messages.getMessages(7));
+        expect("after the lag window both sessions go back to replicas", DBConnection.getPrimaryReadCount() == primary);
+
+        // Health checks
+        servers[0].stop();
+        Thread.sleep(HEALTH_CHECK_MS * 3);
+        expect("stopped replica is marked down", !r1.isHealthy() && r2.isHealthy());
+        before1 = r1.getReadCount();
+        before2 = r2.getReadCount();
+        for (int t = 1; t <= 6; t++) {
+            int taskId = t;
+            inRequest(bob, () -> messages.getMessages(taskId));
+        }
+        expect("reads skip the stopped replica", r1.getReadCount() == before1 && r2.getReadCount() - before2 == 6);
+
+        servers[0] = Server.createTcpServer("-tcpPort", String.valueOf(ports[0])).start();
+        Thread.sleep(HEALTH_CHECK_MS * 3);
+        expect("restarted replica rejoins the rotation", r1.isHealthy());
+
+        DBConnection.shutdown();
+        for (Server server : servers) {
+            server.stop();
+        }
+        if (failures > 0) {
+            System.err.println(failures + " replica routing expectations failed");
+            System.exit(1);
+        }
+        System.out.println("Replica routing OK");
+    }
+
+    private static <T> T inRequest(HttpServletRequest request, Callable<T> work) throws Exception {
+        ReadConsistency.begin(request);
+        try {
+            return work.call();
+        } finally {
+            ReadConsistency.end();
+        }
+    }
+
+    private static boolean contains(List<Message> messages, int msgId) {
+        for (Message m : messages) {
+            if (m.getMsgId() == msgId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void expect(String what, boolean ok) {
+        System.out.println((ok ? "ok   " : "FAIL ") + what);
+        if (!ok) {
+            failures++;
+        }
+    }
+
+    private static String tcpUrl(int port, String name) {
+        return "jdbc:h2:tcp://localhost:" + port + "/mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,USER";
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
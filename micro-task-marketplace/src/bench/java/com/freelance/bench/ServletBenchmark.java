@@ -0,0 +1,100 @@
+package com.freelance.bench;
+
+import com.freelance.controllers.ChatServlet;
+import com.freelance.controllers.TaskServlet;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Request hot paths driven through HttpServlet.service() with in-memory request/response objects. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServletBenchmark {
+
+    @Param({"50", "500"})
+    public int chatHistory;
+
+    private ChatServlet chatServlet;
+    private TaskServlet taskServlet;
+    private FakeHttp.Response response;
+
+    private HttpServletRequest chatFull;
+    private HttpServletRequest chatFullGzip;
+    private HttpServletRequest chatIncremental;
+    private HttpServletRequest chatConditional;
+    private HttpServletRequest taskView;
+    private HttpServletRequest taskList;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchDatabase.seed(50, 500, 0);
+        BenchDatabase.seedMessages(1, chatHistory);
+        chatServlet = new ChatServlet();
+        chatServlet.init();
+        taskServlet = new TaskServlet();
+        taskServlet.init();
+        response = new FakeHttp.Response();
+
+        chatFull = new FakeHttp.Request().path("/chat").param("taskId", 1).build();
+        chatFullGzip = new FakeHttp.Request().path("/chat").param("taskId", 1).header("Accept-Encoding", "gzip").build();
+        chatIncremental = new FakeHttp.Request().path("/chat").param("taskId", 1).param("since", chatHistory).build();
+
+        // Capture the ETag of the current history once, then replay it as If-None-Match
+        chatServlet.service(chatFull, response.build());
+        chatConditional = new FakeHttp.Request().path("/chat").param("taskId", 1)
+                .header("If-None-Match", response.header("ETag")).build();
+
+        taskView = new FakeHttp.Request().path("/tasks").param("action", "view").param("id", 42).build();
+        taskList = new FakeHttp.Request().path("/tasks").param("action", "list").build();
+    }
+
+    @Benchmark
+    public int chatFullHistory() throws Exception {
+        return serve(chatServlet, chatFull);
+    }
+
+    @Benchmark
+    public int chatFullHistoryGzip() throws Exception {
+        return serve(chatServlet, chatFullGzip);
+    }
+
+    @Benchmark
+    public int chatIncrementalPoll() throws Exception {
+        return serve(chatServlet, chatIncremental);
+    }
+
+    @Benchmark
+    public int chatNotModified() throws Exception {
+        return serve(chatServlet, chatConditional);
+    }
+
+    @Benchmark
+    public int taskView() throws Exception {
+        return serve(taskServlet, taskView);
+    }
+
+    @Benchmark
+    public int taskListFirstPage() throws Exception {
+        return serve(taskServlet, taskList);
+    }
+
+    private int serve(javax.servlet.http.HttpServlet servlet, HttpServletRequest request) throws Exception {
+        response.reset();
+        servlet.service(request, response.build());
+        return response.bodyLength() + response.status();
+    }
+}
@@ -0,0 +1,220 @@
+package com.freelance.bench;
+
+import com.freelance.controllers.ApplyTaskServlet;
+import com.freelance.controllers.ChatServlet;
+import com.freelance.controllers.TaskServlet;
+import com.freelance.models.UserPrincipal;
+import com.freelance.utils.CurrentUser;
+import com.freelance.utils.DBConnection;
+import com.freelance.utils.RequestExecutor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Closed-loop load test of the servlets under a simulated container: a fixed pool of "container"
+ * threads (like Jetty's QueuedThreadPool) calls service(), and every statement sent to the H2
+ * database is delayed by load.dbLatencyMs to stand in for a network round trip to MySQL.
+ * Run it once per mode and compare the summary lines:
+ *   mvn -Pbenchmarks test-compile exec:exec@load-platform      (handlers on container threads)
+ *   mvn -Pbenchmarks,java21 test-compile exec:exec@load-virtual (handlers on virtual threads, JDK 21)
+ * Knobs: -Dload.clients=400 -Dload.seconds=15 -Dload.containerThreads=50 -Dload.dbLatencyMs=5
+ * plus the app's own -Dhttp.maxConcurrentRequests and -Ddb.pool.maxSize.
+ */
+public class VirtualThreadLoadCheck {
+    private static final int TASKS = 2000;
+    private static final int USERS = 500;
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("load.clients", 400);
+        int seconds = Integer.getInteger("load.seconds", 15);
+        int containerThreads = Integer.getInteger("load.containerThreads", 50);
+        long dbLatencyMs = Long.getLong("load.dbLatencyMs", 5L);
+
+        BenchDatabase.seed(USERS, TASKS, 0);
+        BenchDatabase.seedMessages(1, 50);
+        DriverManager.registerDriver(new SlowDriver(dbLatencyMs));
+        System.setProperty("db.url", SlowDriver.PREFIX + BenchDatabase.URL);
+
+        TaskServlet tasks = new TaskServlet();
+        tasks.init();
+        ChatServlet chat = new ChatServlet();
+        chat.init();
+        ApplyTaskServlet apply = new ApplyTaskServlet();
+        apply.init();
+
+        ExecutorService container = Executors.newFixedThreadPool(containerThreads);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        AtomicInteger errors = new AtomicInteger();
+        Thread[] drivers = new Thread[clients];
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            drivers[c] = new Thread(() -> {
+                long[] mine = new long[1024];
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    CountDownLatch done = new CountDownLatch(1);
+                    FakeHttp.Response response = new FakeHttp.Response();
+                    FakeHttp.Request request = new FakeHttp.Request().async(done::countDown);
+                    HttpServlet servlet = pick(request, tasks, chat, apply, 1 + client % USERS);
+                    HttpServletRequest built = request.build();
+                    long t0 = System.nanoTime();
+                    container.execute(() -> {
+                        try {
+                            servlet.service(built, response.build());
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (!built.isAsyncStarted()) {
+                            done.countDown();
+                        }
+                    });
+                    try {
+                        done.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (response.status() >= 500) {
+                        errors.incrementAndGet();
+                    }
+                    if (n == mine.length) {
+                        mine = Arrays.copyOf(mine, n * 2);
+                    }
+                    mine[n++] = System.nanoTime() - t0;
+                }
+                latencies[client] = mine;
+                counts[client] = n;
+            }, "client-" + c);
+            drivers[c].start();
+        }
+        for (Thread t : drivers) {
+            t.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        container.shutdown();
+
+        int total = 0;
+        for (int n : counts) {
+            total += n;
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, pos, counts[c]);
+            pos += counts[c];
+        }
+        Arrays.sort(all);
+
+        RequestExecutor requests = RequestExecutor.getInstance();
+        System.out.printf("%s | %d clients, %d container threads, pool %d, db latency %dms | %d requests in %.1fs = %.0f req/s | "
+                        + "p50 %.1fms p99 %.1fms max %.1fms | %d errors, %d rejected%n",
+                requests.describe(), clients, containerThreads, DBConnection.getPool().getMaxSize(), dbLatencyMs,
+                total, elapsed, total / elapsed, percentile(all, 0.50), percentile(all, 0.99),
+                all.length == 0 ? 0 : all[all.length - 1] / 1e6, errors.get(), requests.getRejectedCount());
+        requests.shutdown();
+        DBConnection.shutdown();
+    }
+
+    // Mostly reads, like the real traffic: list, view, chat history, and a few applications
+    private static HttpServlet pick(FakeHttp.Request request, TaskServlet tasks, ChatServlet chat, ApplyTaskServlet apply, int userId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        request.sessionAttribute(CurrentUser.SESSION_KEY, new UserPrincipal(userId, "BOTH"));
+        int roll = random.nextInt(100);
+        if (roll < 40) {
+            request.path("/tasks").param("action", "list").param("limit", 20);
+            return tasks;
+        }
+        if (roll < 80) {
+            request.path("/tasks").param("action", "view").param("id", 1 + random.nextInt(TASKS));
+            return tasks;
+        }
+        if (roll < 95) {
+            request.path("/chat").param("taskId", 1);
+            return chat;
+        }
+        request.method("POST").path("/apply").param("taskId", 1 + random.nextInt(TASKS))
+                .param("proposal", "Load test bid").param("bidAmount", 10 + random.nextInt(500));
+        return apply;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    /** jdbc:slow:<url> opens <url> and sleeps before every statement execution. */
+    static class SlowDriver implements Driver {
+        static final String PREFIX = "jdbc:slow:";
+        private final long latencyMs;
+
+        SlowDriver(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection target = DriverManager.getConnection(url.substring(PREFIX.length()), info);
+            return (Connection) Proxy.newProxyInstance(SlowDriver.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (p, m, a) -> {
+                        Object result = invoke(target, m, a);
+                        if (result instanceof Statement) {
+                            return slowStatement((Statement) result, m.getReturnType());
+                        }
+                        return result;
+                    });
+        }
+
+        private Object slowStatement(Statement target, Class<?> type) {
+            Class<?> iface = type == CallableStatement.class ? CallableStatement.class
+                    : type == PreparedStatement.class ? PreparedStatement.class : Statement.class;
+            return Proxy.newProxyInstance(SlowDriver.class.getClassLoader(), new Class<?>[]{iface}, (p, m, a) -> {
+                if (m.getName().startsWith("execute")) {
+                    Thread.sleep(latencyMs);
+                }
+                return invoke(target, m, a);
+            });
+        }
+
+        private static Object invoke(Object target, Method m, Object[] a) throws Throwable {
+            try {
+                return m.invoke(target, a);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        public boolean acceptsURL(String url) { return url != null && url.startsWith(PREFIX); }
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) { return new DriverPropertyInfo[0]; }
+        public int getMajorVersion() { return 1; }
+        public int getMinorVersion() { return 0; }
+        public boolean jdbcCompliant() { return false; }
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException { throw new SQLFeatureNotSupportedException(); }
+    }
+}
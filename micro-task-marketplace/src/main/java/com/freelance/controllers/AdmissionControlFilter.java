@@ -0,0 +1,115 @@
+package com.freelance.controllers;
+
+import com.freelance.utils.AdmissionControl;
+import com.freelance.utils.CurrentUser;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Turns requests away with 429 and Retry-After before they reach a servlet (and so a DAO): first
+ * when the user, or the client IP if nobody is logged in, is over the route's rate limit, then when
+ * the process already has admission.maxConcurrent requests in flight. Async requests keep their
+ * slot until they complete, except chat long-polls, which hold no connection while parked.
+ */
+@WebFilter(urlPatterns = {"/tasks", "/chat", "/apply", "/auth", "/reviews"}, asyncSupported = true)
+public class AdmissionControlFilter implements Filter {
+    // Behind a proxy every client has the proxy's address; trust its X-Forwarded-For only when told to
+    private static final boolean TRUST_FORWARDED_FOR = Boolean.getBoolean("admission.trustForwardedFor");
+
+    private final AdmissionControl admission = AdmissionControl.getInstance();
+
+    public void init(FilterConfig filterConfig) {
+    }
+
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+        AdmissionControl.Route route = admission.route(request.getServletPath(), request.getMethod());
+
+        long waitNanos = route.tryAcquire(clientKey(request));
+        if (waitNanos > 0) {
+            route.record(AdmissionControl.Result.RATE_LIMITED);
+            reject(response, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+            return;
+        }
+        if (!admission.tryEnter()) {
+            route.record(AdmissionControl.Result.OVERLOADED);
+            reject(response, 1);
+            return;
+        }
+        route.record(AdmissionControl.Result.ADMITTED);
+
+        boolean handedOff = false;
+        try {
+            chain.doFilter(req, res);
+            handedOff = request.isAsyncStarted() && !isLongPoll(request) && exitOnComplete(request);
+        } finally {
+            if (!handedOff) {
+                admission.exit();
+            }
+        }
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        int userId = CurrentUser.id(request);
+        if (userId != 0) {
+            return "user:" + userId;
+        }
+        String forwarded = TRUST_FORWARDED_FOR ? request.getHeader("X-Forwarded-For") : null;
+        if (forwarded != null && !forwarded.isEmpty()) {
+            int comma = forwarded.indexOf(',');
+            return "ip:" + (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static boolean isLongPoll(HttpServletRequest request) {
+        // Only GET: on a POST getParameter would read the form body before the servlet does
+        return "GET".equals(request.getMethod()) && "/chat".equals(request.getServletPath())
+                && "true".equals(request.getParameter("wait"));
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.sendError(429, "Too many requests");
+    }
+
+    // Releases the slot when the async request finishes; false if it already has
+    private boolean exitOnComplete(HttpServletRequest request) {
+        AtomicBoolean released = new AtomicBoolean();
+        try {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                public void onComplete(AsyncEvent event) {
+                    if (released.compareAndSet(false, true)) {
+                        admission.exit();
+                    }
+                }
+                public void onTimeout(AsyncEvent event) {
+                }
+                public void onError(AsyncEvent event) {
+                }
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+            return true;
+        } catch (IllegalStateException e) {
+            // Completed on another thread before the listener could be added
+            return false;
+        }
+    }
+
+    public void destroy() {
+    }
+}
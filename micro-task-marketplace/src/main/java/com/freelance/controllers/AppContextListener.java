@@ -0,0 +1,58 @@
+package com.freelance.controllers;
+
+import com.freelance.dao.ApplicationDAO;
+import com.freelance.dao.TaskDAO;
+import com.freelance.search.SkillIndex;
+import com.freelance.search.TaskSearchIndex;
+import com.freelance.services.DeadlineScheduler;
+import com.freelance.services.RecommendationService;
+import com.freelance.stats.BidStatsStore;
+import com.freelance.utils.AdmissionControl;
+import com.freelance.utils.DBConnection;
+import com.freelance.utils.MigrationRunner;
+import com.freelance.utils.RequestExecutor;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+@WebListener
+public class AppContextListener implements ServletContextListener {
+
+    public void contextInitialized(ServletContextEvent sce) {
+        // -Ddb.migrate=false leaves schema changes to the DBA
+        if (!"false".equals(System.getProperty("db.migrate"))) {
+            try (Connection conn = DBConnection.getConnection()) {
+                List<String> applied = MigrationRunner.migrate(conn);
+                sce.getServletContext().log(applied.isEmpty() ? "Schema up to date" : "Applied migrations: " + applied);
+            } catch (SQLException e) {
+                // Everything below assumes the migrated schema; refuse to deploy rather than run on an old one
+                throw new IllegalStateException("Schema migration failed", e);
+            }
+        }
+        TaskDAO taskDAO = new TaskDAO();
+        SkillIndex.getInstance().rebuild(taskDAO);
+        sce.getServletContext().log("Skill index loaded: " + SkillIndex.getInstance().getIndexedTaskCount() + " open tasks");
+        RecommendationService.getInstance().rebuild(taskDAO);
+        RecommendationService.getInstance().start();
+        sce.getServletContext().log("Recommendations scoring " + RecommendationService.getInstance().getOpenTaskCount() + " open tasks");
+        DeadlineScheduler.getInstance().load(taskDAO);
+        DeadlineScheduler.getInstance().start();
+        sce.getServletContext().log("Deadline scheduler tracking " + DeadlineScheduler.getInstance().getScheduledCount() + " open tasks");
+        TaskSearchIndex.getInstance().rebuild(taskDAO);
+        sce.getServletContext().log("Search index loaded: " + TaskSearchIndex.getInstance().getDocumentCount() + " tasks");
+        BidStatsStore.getInstance().rebuild(new ApplicationDAO());
+        sce.getServletContext().log("Bid statistics loaded for " + BidStatsStore.getInstance().getTaskCount() + " tasks");
+        sce.getServletContext().log("Blocking request handlers run on " + RequestExecutor.getInstance().describe());
+        sce.getServletContext().log("Admission control: " + AdmissionControl.getInstance().describe());
+    }
+
+    public void contextDestroyed(ServletContextEvent sce) {
+        DeadlineScheduler.getInstance().shutdown();
+        RecommendationService.getInstance().shutdown();
+        RequestExecutor.getInstance().shutdown();
+        DBConnection.shutdown();
+    }
+}
@@ -3,26 +3,32 @@ package com.freelance.controllers;
 import com.freelance.dao.ApplicationDAO;
 import com.freelance.models.Application;
 import com.freelance.models.User;
+import com.freelance.utils.CurrentUser;
+import com.freelance.utils.RequestExecutor;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 
-@WebServlet("/apply")
+@WebServlet(urlPatterns = "/apply", asyncSupported = true)
 public class ApplyTaskServlet extends HttpServlet {
     private ApplicationDAO applicationDAO;
+    private RequestExecutor requests;
 
     public void init() {
         applicationDAO = new ApplicationDAO();
+        requests = RequestExecutor.getInstance();
     }
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        HttpSession session = request.getSession();
-        User user = (User) session.getAttribute("user");
-        
+        requests.execute(request, response, this::apply);
+    }
+
+    private void apply(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        User user = CurrentUser.get(request);
+
         if (user == null) {
             response.sendRedirect("views/auth/login.jsp");
             return;
@@ -33,6 +39,7 @@ public class ApplyTaskServlet extends HttpServlet {
         double bidAmount = Double.parseDouble(request.getParameter("bidAmount"));
 
         Application app = new Application(taskId, user.getId(), proposal, bidAmount);
+        app.setFreelancerName(user.getName());
         
         if (applicationDAO.applyForTask(app)) {
             response.sendRedirect("tasks?action=view&id=" + taskId + "&success=Applied successfully");
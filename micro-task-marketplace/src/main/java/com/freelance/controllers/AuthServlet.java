@@ -2,6 +2,9 @@ package com.freelance.controllers;
 
 import com.freelance.dao.UserDAO;
 import com.freelance.models.User;
+import com.freelance.services.RecommendationService;
+import com.freelance.utils.CurrentUser;
+import com.freelance.utils.RequestExecutor;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -10,15 +13,21 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
 
-@WebServlet("/auth")
+@WebServlet(urlPatterns = "/auth", asyncSupported = true)
 public class AuthServlet extends HttpServlet {
     private UserDAO userDAO;
+    private RequestExecutor requests;
 
     public void init() {
         userDAO = new UserDAO();
+        requests = RequestExecutor.getInstance();
     }
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        requests.execute(request, response, this::post);
+    }
+
+    private void post(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         String action = request.getParameter("action");
 
         if ("register".equals(action)) {
@@ -27,6 +36,8 @@ public class AuthServlet extends HttpServlet {
             login(request, response);
         } else if ("logout".equals(action)) {
             logout(request, response);
+        } else if ("updateProfile".equals(action)) {
+            updateProfile(request, response);
         }
     }
 
@@ -41,7 +52,7 @@ public class AuthServlet extends HttpServlet {
             response.sendRedirect("views/auth/login.jsp?success=Registered successfully");
         } else {
             request.setAttribute("error", "Registration failed");
-            request.getRequestDispatcher("views/auth/register.jsp").forward(request, response);
+            RequestExecutor.forward(request, response, "views/auth/register.jsp");
         }
     }
 
@@ -52,11 +63,33 @@ public class AuthServlet extends HttpServlet {
         User user = userDAO.loginUser(email, password);
         if (user != null) {
             HttpSession session = request.getSession();
-            session.setAttribute("user", user);
+            CurrentUser.login(session, user);
+            RecommendationService.getInstance().onLogin(user);
             response.sendRedirect("index.jsp");
         } else {
             request.setAttribute("error", "Invalid credentials");
-            request.getRequestDispatcher("views/auth/login.jsp").forward(request, response);
+            RequestExecutor.forward(request, response, "views/auth/login.jsp");
+        }
+    }
+
+    private void updateProfile(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        User current = CurrentUser.get(request);
+        if (current == null) {
+            response.sendRedirect("views/auth/login.jsp");
+            return;
+        }
+        // The cached profile is shared, so edit a copy; updateProfile invalidates the cache entry
+        User updated = new User();
+        updated.setId(current.getId());
+        updated.setName(request.getParameter("name") != null ? request.getParameter("name") : current.getName());
+        updated.setBio(request.getParameter("bio"));
+        updated.setSkills(request.getParameter("skills"));
+
+        if (userDAO.updateProfile(updated)) {
+            RecommendationService.getInstance().onProfileChanged(updated);
+            response.sendRedirect("reviews?userId=" + current.getId() + "&success=Profile updated");
+        } else {
+            response.sendRedirect("reviews?userId=" + current.getId() + "&error=Failed to update profile");
         }
     }
 
@@ -0,0 +1,159 @@
+package com.freelance.controllers;
+
+import com.freelance.dao.BulkDAO;
+import com.google.gson.stream.JsonWriter;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admin bulk export/import of tasks, applications and messages (see BulkDAO):
+ *   GET  /admin/export?table=tasks&format=ndjson|csv[&after=<last key>]
+ *   POST /admin/import?table=tasks&format=ndjson|csv[&offset=<records to skip>]   (the data is the body)
+ * Both need "Authorization: Bearer <admin.token>"; without -Dadmin.token the endpoints don't exist.
+ * Import answers with NDJSON progress, one {"offset":..,"imported":..} line per committed chunk, and
+ * a final line with "done": true, or "error" and the offset to resume from.
+ */
+@WebServlet(urlPatterns = {"/admin/export", "/admin/import"})
+public class BulkDataServlet extends HttpServlet {
+    private static final String ADMIN_TOKEN = System.getProperty("admin.token", "");
+
+    private BulkDAO bulkDAO;
+
+    public void init() {
+        bulkDAO = new BulkDAO();
+    }
+
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!"/admin/export".equals(request.getServletPath())) {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        if (!authorized(request, response)) {
+            return;
+        }
+        BulkDAO.Table table = BulkDAO.Table.parse(request.getParameter("table"));
+        BulkDAO.Format format = request.getParameter("format") == null ? BulkDAO.Format.NDJSON : BulkDAO.Format.parse(request.getParameter("format"));
+        long after;
+        try {
+            after = request.getParameter("after") == null ? 0 : Long.parseLong(request.getParameter("after"));
+        } catch (NumberFormatException e) {
+            after = -1;
+        }
+        if (table == null || format == null || after < 0) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected table=tasks|applications|messages, format=ndjson|csv, after=<key>");
+            return;
+        }
+
+        String extension = format == BulkDAO.Format.CSV ? "csv" : "ndjson";
+        response.setContentType(format == BulkDAO.Format.CSV ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + table.getName() + "." + extension + "\"");
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 8192);
+        try {
+            bulkDAO.export(table, format, after, out);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Export failed");
+                return;
+            }
+            // Part of the file is already out: fail the request so the container aborts the transfer
+            // and the client sees an incomplete response rather than a short, well-formed file
+            throw new ServletException("Export of " + table.getName() + " failed", e);
+        }
+    }
+
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!"/admin/import".equals(request.getServletPath())) {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        if (!authorized(request, response)) {
+            return;
+        }
+        // The body is the data, so parameters come from the query string only; getParameter would read
+        // a body sent as a form (curl --data-binary does that by default)
+        Map<String, String> query = queryParameters(request);
+        BulkDAO.Table table = BulkDAO.Table.parse(query.get("table"));
+        BulkDAO.Format format = query.get("format") == null ? BulkDAO.Format.NDJSON : BulkDAO.Format.parse(query.get("format"));
+        long offset;
+        try {
+            offset = query.get("offset") == null ? 0 : Long.parseLong(query.get("offset"));
+        } catch (NumberFormatException e) {
+            offset = -1;
+        }
+        if (table == null || format == null || offset < 0) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected table=tasks|applications|messages, format=ndjson|csv, offset=<records>");
+            return;
+        }
+
+        request.setCharacterEncoding("UTF-8");
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+        BulkDAO.ImportResult result = bulkDAO.importRows(table, format, request.getReader(), offset, (done, imported) -> {
+            writeProgress(out, done, imported, null, false);
+            out.flush();
+        });
+        writeProgress(out, result.getOffset(), result.getImported(), result.getError(), result.getError() == null);
+        out.flush();
+    }
+
+    private static Map<String, String> queryParameters(HttpServletRequest request) {
+        Map<String, String> params = new HashMap<>();
+        String query = request.getQueryString();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                params.putIfAbsent(name, eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void writeProgress(PrintWriter out, long offset, long imported, String error, boolean done) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name("offset").value(offset);
+        json.name("imported").value(imported);
+        if (done) {
+            json.name("done").value(true);
+        }
+        if (error != null) {
+            json.name("error").value(error);
+        }
+        json.endObject();
+        out.write('\n');
+    }
+
+    private static boolean authorized(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (ADMIN_TOKEN.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return false;
+        }
+        String header = request.getHeader("Authorization");
+        String token = header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : "";
+        // Constant-time comparison, so response times don't reveal how much of a guess was right
+        if (!MessageDigest.isEqual(ADMIN_TOKEN.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            response.setHeader("WWW-Authenticate", "Bearer");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return false;
+        }
+        return true;
+    }
+}
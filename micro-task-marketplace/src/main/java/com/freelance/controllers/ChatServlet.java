@@ -1,33 +1,256 @@
 package com.freelance.controllers;
 
 import com.freelance.dao.MessageDAO;
+import com.freelance.dao.MessageWriteBehind;
+import com.freelance.dao.TaskDAO;
+import com.freelance.dao.UserDAO;
 import com.freelance.models.Message;
 import com.freelance.models.User;
+import com.freelance.utils.ChangeVersions;
+import com.freelance.utils.ChatHub;
+import com.freelance.utils.CurrentUser;
+import com.freelance.utils.ETags;
+import com.freelance.utils.RequestExecutor;
 import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
 
-@WebServlet("/chat")
+@WebServlet(urlPatterns = "/chat", asyncSupported = true)
 public class ChatServlet extends HttpServlet {
+    private static final int MAX_BATCH = 500;
+    private static final long LONG_POLL_TIMEOUT_MS = Long.getLong("chat.longPoll.timeoutMs", 25_000L);
+    // With write-behind on, wait for the batch commit before answering the POST (default) or ack on enqueue
+    private static final boolean DURABLE_ACK = Boolean.parseBoolean(System.getProperty("chat.writeBehind.durableAck", "true"));
+
+    private MessageWriteBehind writeBehind;
     private MessageDAO messageDAO;
+    private TaskDAO taskDAO;
+    private UserDAO userDAO;
+    private RequestExecutor requests;
+    private ChatHub hub;
     private Gson gson;
+    private TypeAdapter<Timestamp> timestampAdapter;
 
     public void init() {
-        messageDAO = new MessageDAO();
+        writeBehind = MessageWriteBehind.fromSystemProperties();
+        messageDAO = new MessageDAO(writeBehind);
+        taskDAO = new TaskDAO();
+        userDAO = new UserDAO();
+        requests = RequestExecutor.getInstance();
+        hub = ChatHub.getInstance();
         gson = new Gson();
+        timestampAdapter = gson.getAdapter(Timestamp.class);
+    }
+
+    public void destroy() {
+        if (writeBehind != null) {
+            writeBehind.shutdown(10_000);
+        }
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         int taskId = Integer.parseInt(request.getParameter("taskId"));
-        List<Message> messages = messageDAO.getMessages(taskId);
-        
+        String since = request.getParameter("since");
+        if (since != null && "true".equals(request.getParameter("wait"))) {
+            longPoll(request, taskId, Integer.parseInt(since));
+            return;
+        }
+        requests.execute(request, response, this::history);
+    }
+
+    private void history(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        int taskId = Integer.parseInt(request.getParameter("taskId"));
+        String since = request.getParameter("since");
+        boolean gzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+        String etag = ETags.of("c", taskId, ChangeVersions.chatVersion(taskId), since == null ? "all" : since, gzip ? "gz" : "id");
+        if (ETags.notModified(request, response, etag)) {
+            return;
+        }
+
+        // With ?since=<lastMsgId> only newer messages are returned; without it, the full history.
+        try {
+            if (since == null) {
+                streamMessages(response, gzip, taskId, 0, Integer.MAX_VALUE);
+            } else {
+                streamMessages(response, gzip, taskId, Integer.parseInt(since), MAX_BATCH);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            if (!response.isCommitted()) {
+                // Drops the ETag too: an empty or cut-short history must not be cached as current
+                response.reset();
+                response.setHeader("Retry-After", "1");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            // Part of the array is already out: abort it rather than close it into a short, valid answer
+            throw new ServletException("Chat history for task " + taskId + " failed", e);
+        }
+    }
+
+    /**
+     * True if the Accept-Encoding header allows gzip: listed as gzip (or its alias x-gzip) with a q
+     * above 0, or not listed but covered by a "*" with a q above 0. "gzip;q=0" is a refusal.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzipQ = -1;
+        double anyQ = -1;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=") || param.startsWith("Q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if ("gzip".equals(coding) || "x-gzip".equals(coding)) {
+                gzipQ = Math.max(gzipQ, q);
+            } else if ("*".equals(coding)) {
+                anyQ = Math.max(anyQ, q);
+            }
+        }
+        return gzipQ >= 0 ? gzipQ > 0 : anyQ > 0;
+    }
+
+    /**
+     * Writes rows straight from the DAO's result set into a JsonWriter on the response
+     * (gzip-compressed when the client accepts it), with no intermediate List or String.
+     * Output matches what Gson produces for a List<Message>.
+     */
+    private void streamMessages(HttpServletResponse response, boolean gzip,
+                                int taskId, int since, int limit) throws IOException, SQLException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.addHeader("Vary", "Accept-Encoding");
+        OutputStream os = response.getOutputStream();
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            os = new GZIPOutputStream(os, 8192);
+        }
+
+        // Not try-with-resources: closing on a failed query would flush and commit a truncated array
+        JsonWriter json = new JsonWriter(new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 8192));
+        json.beginArray();
+        messageDAO.streamMessagesSince(taskId, since, limit, (msgId, tId, senderId, receiverId, text, timestamp, senderName) -> {
+            json.beginObject();
+            json.name("msgId").value(msgId);
+            json.name("taskId").value(tId);
+            json.name("senderId").value(senderId);
+            json.name("receiverId").value(receiverId);
+            if (text != null) {
+                json.name("message").value(text);
+            }
+            if (timestamp != null) {
+                json.name("timestamp");
+                timestampAdapter.write(json, timestamp);
+            }
+            if (senderName != null) {
+                json.name("senderName").value(senderName);
+            }
+            json.endObject();
+        });
+        json.endArray();
+        json.close();
+    }
+
+    /**
+     * ?since=<lastMsgId>&wait=true parks the request until a newer message is posted for the task
+     * or the timeout passes (then answers []). The request holds no thread while parked.
+     */
+    private void longPoll(HttpServletRequest request, int taskId, int since) throws IOException {
+        AsyncContext ctx = request.startAsync();
+        ctx.setTimeout(LONG_POLL_TIMEOUT_MS);
+
+        ChatHub.Subscriber sub = hub.subscribe(taskId, s -> ctx.start(() -> deliver(ctx, s, since)));
+        if (sub == null) {
+            // Too many parked requests; behave like a plain incremental poll
+            writeMessages((HttpServletResponse) ctx.getResponse(), messageDAO.getMessagesSince(taskId, since, MAX_BATCH));
+            ctx.complete();
+            return;
+        }
+        ctx.addListener(new AsyncListener() {
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (sub.cancel()) {
+                    writeMessages((HttpServletResponse) ctx.getResponse(), Collections.emptyList());
+                    ctx.complete();
+                }
+            }
+            public void onError(AsyncEvent event) {
+                sub.cancel();
+            }
+            public void onComplete(AsyncEvent event) {
+                hub.unsubscribe(sub);
+            }
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        // Subscribed before checking the DB, so a message posted in between is never missed.
+        // Skip the query entirely when the hub already knows the client is up to date.
+        long version = ChangeVersions.chatVersion(taskId);
+        if (!hub.isUpToDate(taskId, since, version)) {
+            List<Message> pending = messageDAO.getMessagesSince(taskId, since, MAX_BATCH);
+            if (!pending.isEmpty()) {
+                if (pending.size() < MAX_BATCH) {
+                    // A full batch may have more behind it, so only a short one shows the newest id
+                    hub.noteLatest(taskId, pending.get(pending.size() - 1).getMsgId(), version);
+                }
+                if (sub.cancel()) {
+                    writeMessages((HttpServletResponse) ctx.getResponse(), pending);
+                    ctx.complete();
+                }
+            }
+        }
+    }
+
+    private void deliver(AsyncContext ctx, ChatHub.Subscriber sub, int since) {
+        List<Message> fresh = new ArrayList<>();
+        for (Message msg : sub.drain()) {
+            if (msg.getMsgId() > since) {
+                fresh.add(msg);
+            }
+        }
+        try {
+            writeMessages((HttpServletResponse) ctx.getResponse(), fresh);
+        } catch (IOException e) {
+            // Client went away
+        } finally {
+            ctx.complete();
+        }
+    }
+
+    private void writeMessages(HttpServletResponse response, List<Message> messages) throws IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         PrintWriter out = response.getWriter();
@@ -36,9 +259,17 @@ public class ChatServlet extends HttpServlet {
     }
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        HttpSession session = request.getSession();
-        User user = (User) session.getAttribute("user");
-        
+        if (writeBehind == null) {
+            // The insert happens on the calling thread; with write-behind the POST only enqueues
+            requests.execute(request, response, this::post);
+        } else {
+            post(request, response);
+        }
+    }
+
+    private void post(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        User user = CurrentUser.get(request);
+
         if (user == null) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             return;
@@ -47,10 +278,88 @@ public class ChatServlet extends HttpServlet {
         int taskId = Integer.parseInt(request.getParameter("taskId"));
         int receiverId = Integer.parseInt(request.getParameter("receiverId"));
         String text = request.getParameter("message");
+        // Checked before queueing: with write-behind a row the DB rejects only fails after the POST is answered
+        if (taskDAO.getTaskById(taskId) == null || userDAO.getUserById(receiverId) == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("application/json");
+            response.getWriter().print("{\"success\": false}");
+            return;
+        }
 
         Message msg = new Message(taskId, user.getId(), receiverId, text);
-        boolean success = messageDAO.sendMessage(msg);
-        
+        String senderName = user.getName();
+        CompletableFuture<Message> stored = messageDAO.queueMessage(msg).whenComplete((m, err) -> {
+            if (err == null) {
+                m.setSenderName(senderName);
+                hub.publish(m);
+            }
+        });
+
+        if (writeBehind == null || !DURABLE_ACK || stored.isDone()) {
+            writePostResult(response, stored);
+            return;
+        }
+        AsyncContext ctx = request.startAsync();
+        ctx.setTimeout(30_000);
+        // Whichever of the batch commit and the timeout comes first answers; the other does nothing
+        AtomicBoolean answered = new AtomicBoolean();
+        ctx.addListener(new AsyncListener() {
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (answered.compareAndSet(false, true)) {
+                    // The batch may still commit; 503 tells the client to retry later, not that it failed for good
+                    HttpServletResponse timedOut = (HttpServletResponse) ctx.getResponse();
+                    timedOut.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    timedOut.setHeader("Retry-After", "1");
+                    timedOut.setContentType("application/json");
+                    timedOut.getWriter().print("{\"success\": false}");
+                    ctx.complete();
+                }
+            }
+            public void onError(AsyncEvent event) {
+                answered.set(true);
+            }
+            public void onComplete(AsyncEvent event) {
+            }
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        stored.whenComplete((m, err) -> {
+            if (!answered.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                ctx.start(() -> {
+                    try {
+                        writePostResult((HttpServletResponse) ctx.getResponse(), stored);
+                    } catch (IOException e) {
+                        // Client went away
+                    } finally {
+                        ctx.complete();
+                    }
+                });
+            } catch (IllegalStateException e) {
+                // The request was already completed by the container (client disconnected)
+            }
+        });
+    }
+
+    private void writePostResult(HttpServletResponse response, CompletableFuture<Message> stored) throws IOException {
+        boolean success = false;
+        if (stored.isDone()) {
+            try {
+                stored.join();
+                success = true;
+            } catch (Exception e) {
+                if (e.getCause() instanceof MessageWriteBehind.QueueFullException) {
+                    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    response.setHeader("Retry-After", "1");
+                }
+            }
+        } else {
+            // Accepted into the write-behind queue (durable ack disabled)
+            success = true;
+        }
+
         response.setContentType("application/json");
         PrintWriter out = response.getWriter();
         out.print("{\"success\": " + success + "}");
@@ -0,0 +1,63 @@
+package com.freelance.controllers;
+
+import com.freelance.utils.LatencyHistogram;
+import com.freelance.utils.Metrics;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Records per-route request latency. Async requests (chat long-polls, durable-ack posts)
+ * are recorded when they complete, not when the container thread returns.
+ */
+@WebFilter(urlPatterns = {"/tasks", "/chat", "/apply", "/auth", "/reviews"}, asyncSupported = true)
+public class MetricsFilter implements Filter {
+
+    public void init(FilterConfig filterConfig) {
+    }
+
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        LatencyHistogram histogram = Metrics.http(request.getServletPath(), request.getMethod());
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(req, res);
+        } finally {
+            if (request.isAsyncStarted()) {
+                recordOnComplete(request, histogram, start);
+            } else {
+                histogram.recordSince(start);
+            }
+        }
+    }
+
+    private void recordOnComplete(HttpServletRequest request, LatencyHistogram histogram, long start) {
+        try {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                public void onComplete(AsyncEvent event) {
+                    histogram.recordSince(start);
+                }
+                public void onTimeout(AsyncEvent event) {
+                }
+                public void onError(AsyncEvent event) {
+                }
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } catch (IllegalStateException e) {
+            // Completed on another thread before the listener could be added
+            histogram.recordSince(start);
+        }
+    }
+
+    public void destroy() {
+    }
+}
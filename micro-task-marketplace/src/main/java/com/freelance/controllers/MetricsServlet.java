@@ -0,0 +1,216 @@
+package com.freelance.controllers;
+
+import com.freelance.dao.TaskDAO;
+import com.freelance.dao.UserDAO;
+import com.freelance.search.SkillIndex;
+import com.freelance.search.TaskSearchIndex;
+import com.freelance.services.DeadlineScheduler;
+import com.freelance.services.RecommendationService;
+import com.freelance.utils.AdmissionControl;
+import com.freelance.utils.ChatHub;
+import com.freelance.utils.ConnectionPool;
+import com.freelance.utils.DBConnection;
+import com.freelance.utils.LatencyHistogram;
+import com.freelance.utils.LruCache;
+import com.freelance.utils.Metrics;
+import com.freelance.utils.ReplicaRouter;
+import com.freelance.utils.RequestExecutor;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prometheus text exposition (format 0.0.4) of request, DAO, pool, cache and index metrics.
+ * Only answers loopback clients unless started with -Dmetrics.allowRemote=true.
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+    private static final boolean ALLOW_REMOTE = Boolean.getBoolean("metrics.allowRemote");
+
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String remote = request.getRemoteAddr();
+        if (!ALLOW_REMOTE && !"127.0.0.1".equals(remote) && !"0:0:0:0:0:0:0:1".equals(remote) && !"::1".equals(remote)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+
+        header(out, "http_request_duration_seconds", "histogram", "Request latency by route and method");
+        for (Map.Entry<String, LatencyHistogram> e : Metrics.httpSeries().entrySet()) {
+            String[] parts = e.getKey().split(" ", 2);
+            histogram(out, "http_request_duration_seconds", "route=\"" + parts[0] + "\",method=\"" + parts[1] + "\"", e.getValue());
+        }
+
+        header(out, "db_query_duration_seconds", "histogram", "DAO query latency");
+        for (Map.Entry<String, Metrics.QueryStats> e : Metrics.querySeries().entrySet()) {
+            histogram(out, "db_query_duration_seconds", "query=\"" + e.getKey() + "\"", e.getValue().latency);
+        }
+        header(out, "db_query_rows_total", "counter", "Rows returned or changed by DAO queries");
+        for (Map.Entry<String, Metrics.QueryStats> e : Metrics.querySeries().entrySet()) {
+            sample(out, "db_query_rows_total", "query=\"" + e.getKey() + "\"", e.getValue().rows.sum());
+        }
+        header(out, "db_query_errors_total", "counter", "DAO queries that failed with SQLException");
+        for (Map.Entry<String, Metrics.QueryStats> e : Metrics.querySeries().entrySet()) {
+            sample(out, "db_query_errors_total", "query=\"" + e.getKey() + "\"", e.getValue().errors.sum());
+        }
+
+        header(out, "db_connection_acquire_seconds", "histogram", "Time to borrow a connection from the pool");
+        histogram(out, "db_connection_acquire_seconds", "", Metrics.connectionAcquire());
+        ReplicaRouter replicas = DBConnection.getReplicas();
+        List<ConnectionPool> pools = new ArrayList<>();
+        pools.add(DBConnection.getPool());
+        if (replicas != null) {
+            for (ReplicaRouter.Replica replica : replicas.getReplicas()) {
+                pools.add(replica.getPool());
+            }
+        }
+        pools(out, pools);
+        header(out, "db_reads_total", "counter", "Reads routed through getReadConnection, by target");
+        sample(out, "db_reads_total", "target=\"primary\"", DBConnection.getPrimaryReadCount());
+        if (replicas != null) {
+            for (ReplicaRouter.Replica replica : replicas.getReplicas()) {
+                sample(out, "db_reads_total", "target=\"" + replica.getPool().getName() + "\"", replica.getReadCount());
+            }
+            header(out, "db_replica_healthy", "gauge", "1 while the replica is in rotation");
+            for (ReplicaRouter.Replica replica : replicas.getReplicas()) {
+                sample(out, "db_replica_healthy", "pool=\"" + replica.getPool().getName() + "\"", replica.isHealthy() ? 1 : 0);
+            }
+        }
+
+        caches(out, Arrays.asList(TaskDAO.getTaskCache(), TaskDAO.getPageCache(), UserDAO.getUserCache()));
+
+        RequestExecutor requests = RequestExecutor.getInstance();
+        header(out, "http_offload_active", "gauge", "Offloaded request handlers holding a concurrency permit");
+        sample(out, "http_offload_active", "", requests.getActiveCount());
+        header(out, "http_offload_waiting", "gauge", "Offloaded request handlers waiting for a permit");
+        sample(out, "http_offload_waiting", "", requests.getWaitingCount());
+        header(out, "http_offload_requests_total", "counter", "Requests handed to worker threads");
+        sample(out, "http_offload_requests_total", "", requests.getOffloadedCount());
+        header(out, "http_offload_rejected_total", "counter", "Offloaded requests answered 503 for lack of a permit");
+        sample(out, "http_offload_rejected_total", "", requests.getRejectedCount());
+        header(out, "http_offload_timeouts_total", "counter", "Offloaded requests answered 503 after http.asyncTimeoutMs");
+        sample(out, "http_offload_timeouts_total", "", requests.getTimedOutCount());
+
+        AdmissionControl admission = AdmissionControl.getInstance();
+        header(out, "http_admission_requests_total", "counter", "Requests admitted or turned away with 429, by route, method and result");
+        for (AdmissionControl.Route route : admission.getRoutes().values()) {
+            String[] parts = route.getKey().split(" ", 2);
+            String l = "route=\"" + parts[0] + "\",method=\"" + parts[1] + "\"";
+            sample(out, "http_admission_requests_total", l + ",result=\"admitted\"", route.getAdmittedCount());
+            sample(out, "http_admission_requests_total", l + ",result=\"rate_limited\"", route.getRateLimitedCount());
+            sample(out, "http_admission_requests_total", l + ",result=\"overloaded\"", route.getOverloadedCount());
+        }
+        header(out, "http_admission_buckets", "gauge", "Per-client rate limit buckets held, by route and method");
+        for (AdmissionControl.Route route : admission.getRoutes().values()) {
+            String[] parts = route.getKey().split(" ", 2);
+            sample(out, "http_admission_buckets", "route=\"" + parts[0] + "\",method=\"" + parts[1] + "\"", route.getBucketCount());
+        }
+        header(out, "http_admission_in_flight", "gauge", "Admitted requests still running");
+        sample(out, "http_admission_in_flight", "", admission.getInFlight());
+
+        header(out, "chat_longpoll_waiting", "gauge", "Parked chat long-poll requests");
+        sample(out, "chat_longpoll_waiting", "", ChatHub.getInstance().getSubscriberCount());
+        header(out, "skill_index_tasks", "gauge", "Open tasks in the skill index");
+        sample(out, "skill_index_tasks", "", SkillIndex.getInstance().getIndexedTaskCount());
+        header(out, "recommend_feeds", "gauge", "Precomputed recommendation feeds");
+        sample(out, "recommend_feeds", "", RecommendationService.getInstance().getFeedCount());
+        header(out, "recommend_open_tasks", "gauge", "Open tasks scored for recommendations");
+        sample(out, "recommend_open_tasks", "", RecommendationService.getInstance().getOpenTaskCount());
+        header(out, "deadline_tasks_scheduled", "gauge", "Open tasks waiting for their deadline");
+        sample(out, "deadline_tasks_scheduled", "", DeadlineScheduler.getInstance().getScheduledCount());
+        header(out, "deadline_tasks_closed_total", "counter", "Tasks closed because their deadline passed");
+        sample(out, "deadline_tasks_closed_total", "", DeadlineScheduler.getInstance().getClosedCount());
+        header(out, "search_index_documents", "gauge", "Tasks in the full-text index");
+        sample(out, "search_index_documents", "", TaskSearchIndex.getInstance().getDocumentCount());
+        out.flush();
+    }
+
+    // Each family gets one HELP/TYPE header with the samples of every pool or cache under it, as the
+    // exposition format requires
+    private static void pools(PrintWriter out, List<ConnectionPool> pools) {
+        header(out, "db_pool_connections", "gauge", "Connections by state");
+        for (ConnectionPool pool : pools) {
+            String l = "pool=\"" + pool.getName() + "\"";
+            sample(out, "db_pool_connections", l + ",state=\"open\"", pool.getOpenConnections());
+            sample(out, "db_pool_connections", l + ",state=\"idle\"", pool.getIdleConnections());
+            sample(out, "db_pool_connections", l + ",state=\"active\"", pool.getActiveConnections());
+        }
+        header(out, "db_pool_waiting_threads", "gauge", "Threads waiting for a connection");
+        for (ConnectionPool pool : pools) {
+            sample(out, "db_pool_waiting_threads", "pool=\"" + pool.getName() + "\"", pool.getWaitingThreads());
+        }
+        header(out, "db_pool_borrows_total", "counter", "Connections handed out");
+        for (ConnectionPool pool : pools) {
+            sample(out, "db_pool_borrows_total", "pool=\"" + pool.getName() + "\"", pool.getBorrowCount());
+        }
+        header(out, "db_pool_waits_total", "counter", "Borrows that had to wait for a free connection");
+        for (ConnectionPool pool : pools) {
+            sample(out, "db_pool_waits_total", "pool=\"" + pool.getName() + "\"", pool.getWaitCount());
+        }
+        header(out, "db_pool_exhausted_total", "counter", "Borrows that timed out");
+        for (ConnectionPool pool : pools) {
+            sample(out, "db_pool_exhausted_total", "pool=\"" + pool.getName() + "\"", pool.getExhaustedCount());
+        }
+        header(out, "db_statement_cache_requests_total", "counter", "prepareStatement calls by statement cache result");
+        for (ConnectionPool pool : pools) {
+            String l = "pool=\"" + pool.getName() + "\"";
+            sample(out, "db_statement_cache_requests_total", l + ",result=\"hit\"", pool.getStatementCacheHits());
+            sample(out, "db_statement_cache_requests_total", l + ",result=\"miss\"", pool.getStatementCacheMisses());
+        }
+    }
+
+    private static void caches(PrintWriter out, List<LruCache<?, ?>> caches) {
+        header(out, "cache_requests_total", "counter", "Cache lookups by result");
+        for (LruCache<?, ?> cache : caches) {
+            String l = "cache=\"" + cache.getName() + "\"";
+            sample(out, "cache_requests_total", l + ",result=\"hit\"", cache.getHitCount());
+            sample(out, "cache_requests_total", l + ",result=\"miss\"", cache.getMissCount());
+        }
+        header(out, "cache_evictions_total", "counter", "Entries evicted for size");
+        for (LruCache<?, ?> cache : caches) {
+            sample(out, "cache_evictions_total", "cache=\"" + cache.getName() + "\"", cache.getEvictionCount());
+        }
+        header(out, "cache_size", "gauge", "Entries currently cached");
+        for (LruCache<?, ?> cache : caches) {
+            sample(out, "cache_size", "cache=\"" + cache.getName() + "\"", cache.size());
+        }
+    }
+
+    private static void header(PrintWriter out, String name, String type, String help) {
+        out.print("# HELP " + name + " " + help + "\n");
+        out.print("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(PrintWriter out, String name, String labels, double value) {
+        out.print(name);
+        if (!labels.isEmpty()) {
+            out.print("{" + labels + "}");
+        }
+        out.print(" ");
+        out.print(value == Math.rint(value) && !Double.isInfinite(value) ? Long.toString((long) value) : Double.toString(value));
+        out.print("\n");
+    }
+
+    private static void histogram(PrintWriter out, String name, String labels, LatencyHistogram h) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < LatencyHistogram.BOUNDS_SECONDS.length; i++) {
+            cumulative += h.bucketCount(i);
+            sample(out, name + "_bucket", prefix + "le=\"" + LatencyHistogram.BOUNDS_SECONDS[i] + "\"", cumulative);
+        }
+        cumulative += h.bucketCount(LatencyHistogram.BOUNDS_SECONDS.length);
+        sample(out, name + "_bucket", prefix + "le=\"+Inf\"", cumulative);
+        sample(out, name + "_sum", labels, h.sumSeconds());
+        sample(out, name + "_count", labels, cumulative);
+    }
+}
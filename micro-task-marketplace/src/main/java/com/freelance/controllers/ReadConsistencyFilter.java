@@ -0,0 +1,36 @@
+package com.freelance.controllers;
+
+import com.freelance.utils.ReadConsistency;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Opens a ReadConsistency scope around every request (and every async re-dispatch to a JSP), so DAO
+ * reads can go to a replica unless this session has just written something.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true, dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.ASYNC})
+public class ReadConsistencyFilter implements Filter {
+
+    public void init(FilterConfig filterConfig) {
+    }
+
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        ReadConsistency.begin((HttpServletRequest) req);
+        try {
+            chain.doFilter(req, res);
+        } finally {
+            ReadConsistency.end();
+        }
+    }
+
+    public void destroy() {
+    }
+}
@@ -0,0 +1,88 @@
+package com.freelance.controllers;
+
+import com.freelance.dao.ReviewDAO;
+import com.freelance.dao.UserDAO;
+import com.freelance.models.Review;
+import com.freelance.models.User;
+import com.freelance.models.UserPrincipal;
+import com.freelance.utils.CurrentUser;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@WebServlet("/reviews")
+public class ReviewServlet extends HttpServlet {
+    private static final int RECENT_REVIEWS = 20;
+
+    private ReviewDAO reviewDAO;
+    private UserDAO userDAO;
+
+    public void init() {
+        reviewDAO = new ReviewDAO();
+        userDAO = new UserDAO();
+    }
+
+    // Profile page: the rating comes straight off the users row
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        int userId;
+        try {
+            userId = Integer.parseInt(request.getParameter("userId"));
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid user id");
+            return;
+        }
+        User profile = userDAO.getUserById(userId);
+        if (profile == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // ?taskId=... shows the review form for that task; only a number ever reaches the page
+        String taskId = request.getParameter("taskId");
+        if (taskId != null) {
+            try {
+                request.setAttribute("reviewTaskId", Integer.parseInt(taskId));
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid task id");
+                return;
+            }
+        }
+        request.setAttribute("profile", profile);
+        request.setAttribute("reviews", reviewDAO.getReviewsFor(userId, RECENT_REVIEWS));
+        request.getRequestDispatcher("views/users/profile.jsp").forward(request, response);
+    }
+
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        UserPrincipal user = CurrentUser.principal(request);
+        if (user == null) {
+            response.sendRedirect("views/auth/login.jsp");
+            return;
+        }
+
+        Review review;
+        try {
+            review = new Review(Integer.parseInt(request.getParameter("taskId")), user.getId(),
+                    Integer.parseInt(request.getParameter("reviewedId")), Integer.parseInt(request.getParameter("rating")),
+                    request.getParameter("comment"));
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid review");
+            return;
+        }
+        if (review.getRating() < 1 || review.getRating() > 5 || review.getReviewedId() == user.getId()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Rating must be 1-5 and not for yourself");
+            return;
+        }
+        if (!reviewDAO.canReview(review.getTaskId(), user.getId(), review.getReviewedId())) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Only the client and the assigned freelancer of a completed task can review each other");
+            return;
+        }
+
+        if (reviewDAO.submitReview(review)) {
+            response.sendRedirect("reviews?userId=" + review.getReviewedId() + "&success=Review submitted");
+        } else {
+            response.sendRedirect("reviews?userId=" + review.getReviewedId() + "&error=Failed to submit review");
+        }
+    }
+}
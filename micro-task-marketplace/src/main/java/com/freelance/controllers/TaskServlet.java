@@ -2,44 +2,71 @@ package com.freelance.controllers;
 
 import com.freelance.dao.TaskDAO;
 import com.freelance.models.Task;
+import com.freelance.models.TaskPage;
 import com.freelance.models.User;
+import com.freelance.models.UserPrincipal;
+import com.freelance.search.SkillIndex;
+import com.freelance.search.TaskSearchIndex;
+import com.freelance.services.RecommendationService;
+import com.freelance.stats.BidStatsStore;
+import com.freelance.utils.ChangeVersions;
+import com.freelance.utils.CurrentUser;
+import com.freelance.utils.ETags;
+import com.freelance.utils.RequestExecutor;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.util.List;
 
-@WebServlet("/tasks")
+@WebServlet(urlPatterns = "/tasks", asyncSupported = true)
 public class TaskServlet extends HttpServlet {
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private TaskDAO taskDAO;
+    private RequestExecutor requests;
 
     public void init() {
         taskDAO = new TaskDAO();
+        requests = RequestExecutor.getInstance();
     }
 
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        requests.execute(request, response, this::post);
+    }
+
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        requests.execute(request, response, this::get);
+    }
+
+    private void post(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         String action = request.getParameter("action");
         if ("create".equals(action)) {
             createTask(request, response);
         }
     }
 
-    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+    private void get(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         String action = request.getParameter("action");
         if (action == null || "list".equals(action)) {
             listTasks(request, response);
         } else if ("view".equals(action)) {
             viewTask(request, response);
+        } else if ("matching".equals(action)) {
+            matchingTasks(request, response);
+        } else if ("recommended".equals(action)) {
+            recommendedTasks(request, response);
+        } else if ("search".equals(action)) {
+            searchTasks(request, response);
         }
     }
 
     private void createTask(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        HttpSession session = request.getSession();
-        User user = (User) session.getAttribute("user");
-        
+        UserPrincipal user = CurrentUser.principal(request);
+
         if (user == null) {
             response.sendRedirect("views/auth/login.jsp");
             return;
@@ -60,15 +87,95 @@ public class TaskServlet extends HttpServlet {
     }
 
     private void listTasks(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        List<Task> tasks = taskDAO.getAllTasks();
-        request.setAttribute("tasks", tasks);
-        request.getRequestDispatcher("views/tasks/list.jsp").forward(request, response);
+        String etag = ETags.of("tl", ChangeVersions.tasksVersion(), currentUserId(request), queryHash(request));
+        if (ETags.notModified(request, response, etag)) {
+            return;
+        }
+        String status = emptyToNull(request.getParameter("status"));
+        String cursor = emptyToNull(request.getParameter("cursor"));
+        TaskPage page;
+        try {
+            Double minBudget = parseDouble(request.getParameter("minBudget"));
+            Double maxBudget = parseDouble(request.getParameter("maxBudget"));
+            int limit = PAGE_SIZE;
+            if (request.getParameter("limit") != null) {
+                limit = Math.max(1, Math.min(MAX_PAGE_SIZE, Integer.parseInt(request.getParameter("limit"))));
+            }
+            page = taskDAO.getTasksPage(status, minBudget, maxBudget, cursor, limit);
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid filter or cursor");
+            return;
+        }
+        if (page == null) {
+            // reset() drops the ETag, so the failure isn't revalidated as an empty listing
+            response.reset();
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        request.setAttribute("tasks", page.getTasks());
+        request.setAttribute("nextCursor", page.getNextCursor());
+        RequestExecutor.forward(request, response, "views/tasks/list.jsp");
+    }
+
+    // Open tasks ranked by how many of the logged-in user's skills they ask for
+    private void matchingTasks(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        User user = CurrentUser.get(request);
+        if (user == null) {
+            response.sendRedirect("views/auth/login.jsp");
+            return;
+        }
+        List<Integer> ids = SkillIndex.getInstance().rankTaskIds(user, PAGE_SIZE);
+        request.setAttribute("tasks", taskDAO.getTasksByIds(ids));
+        RequestExecutor.forward(request, response, "views/tasks/list.jsp");
+    }
+
+    // The precomputed feed: skill match weighted with budget and recency
+    private void recommendedTasks(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        User user = CurrentUser.get(request);
+        if (user == null) {
+            response.sendRedirect("views/auth/login.jsp");
+            return;
+        }
+        List<Integer> ids = RecommendationService.getInstance().recommend(user, PAGE_SIZE);
+        request.setAttribute("tasks", taskDAO.getTasksByIds(ids));
+        RequestExecutor.forward(request, response, "views/tasks/list.jsp");
+    }
+
+    private void searchTasks(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String query = request.getParameter("q");
+        List<Integer> ids = TaskSearchIndex.getInstance().search(query, PAGE_SIZE);
+        request.setAttribute("tasks", taskDAO.getTasksByIds(ids));
+        RequestExecutor.forward(request, response, "views/tasks/list.jsp");
     }
 
     private void viewTask(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         int taskId = Integer.parseInt(request.getParameter("id"));
+        String etag = ETags.of("t", taskId, ChangeVersions.taskVersion(taskId), currentUserId(request), queryHash(request));
+        if (ETags.notModified(request, response, etag)) {
+            return;
+        }
         Task task = taskDAO.getTaskById(taskId);
         request.setAttribute("task", task);
-        request.getRequestDispatcher("views/tasks/details.jsp").forward(request, response);
+        request.setAttribute("bidStats", BidStatsStore.getInstance().getStats(taskId));
+        RequestExecutor.forward(request, response, "views/tasks/details.jsp");
+    }
+
+    // Pages render the logged-in user's name and links, so the user is part of the ETag
+    private static int currentUserId(HttpServletRequest request) {
+        return CurrentUser.id(request);
+    }
+
+    private static String queryHash(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return query == null ? "0" : Integer.toHexString(query.hashCode());
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static Double parseDouble(String value) {
+        return value == null || value.isEmpty() ? null : Double.valueOf(value);
     }
 }
@@ -1,25 +1,53 @@
 package com.freelance.dao;
 
 import com.freelance.models.Application;
-import com.freelance.utils.DBConnection;
-import java.sql.*;
+import com.freelance.stats.BidStatsStore;
+import com.freelance.utils.ChangeVersions;
+import com.freelance.utils.ReadConsistency;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
 
 public class ApplicationDAO {
+    private static final RowMapper<Application> APPLICATION_MAPPER = new RowMapper<Application>("application_id", "task_id",
+            "freelancer_id", "proposal_text", "bid_amount", "status", "timestamp", "freelancer_name") {
+        protected Application mapRow(ResultSet rs, int[] col) throws SQLException {
+            Application app = new Application();
+            app.setApplicationId(getInt(rs, col[0]));
+            app.setTaskId(getInt(rs, col[1]));
+            app.setFreelancerId(getInt(rs, col[2]));
+            app.setProposalText(getString(rs, col[3]));
+            app.setBidAmount(getDouble(rs, col[4]));
+            app.setStatus(getString(rs, col[5]));
+            app.setTimestamp(getTimestamp(rs, col[6]));
+            app.setFreelancerName(getString(rs, col[7]));
+            return app;
+        }
+    };
+
     public boolean applyForTask(Application app) {
         String sql = "INSERT INTO applications (task_id, freelancer_id, proposal_text, bid_amount) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, app.getTaskId());
-            pstmt.setInt(2, app.getFreelancerId());
-            pstmt.setString(3, app.getProposalText());
-            pstmt.setDouble(4, app.getBidAmount());
-            
-            int rows = pstmt.executeUpdate();
-            return rows > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
+        long applicationId = JdbcTemplate.primary().insert("ApplicationDAO.applyForTask", sql,
+                app.getTaskId(), app.getFreelancerId(), app.getProposalText(), app.getBidAmount());
+        if (applicationId < 0) {
             return false;
         }
+        if (applicationId > 0) {
+            app.setApplicationId((int) applicationId);
+        }
+        BidStatsStore.getInstance().onApplication(app);
+        ChangeVersions.taskDetailsChanged(app.getTaskId());
+        ReadConsistency.recordWrite();
+        return true;
+    }
+
+    /**
+     * Streams every application (with the freelancer's name) to the consumer one row at a time.
+     * Used to rebuild the in-memory bid statistics at startup.
+     */
+    public void forEachApplication(Consumer<Application> consumer) {
+        String sql = "SELECT a.application_id, a.task_id, a.freelancer_id, a.bid_amount, a.status, a.timestamp, u.name as freelancer_name "
+                + "FROM applications a JOIN users u ON a.freelancer_id = u.id";
+        JdbcTemplate.primary().stream("ApplicationDAO.forEachApplication", sql, APPLICATION_MAPPER, consumer);
     }
 }
@@ -0,0 +1,577 @@
+package com.freelance.dao;
+
+import com.freelance.models.Application;
+import com.freelance.models.Task;
+import com.freelance.stats.BidStatsStore;
+import com.freelance.utils.ChangeVersions;
+import com.freelance.utils.DBConnection;
+import com.freelance.utils.Metrics;
+import com.freelance.utils.ReadConsistency;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk export and import of whole tables (tasks, applications, messages) as NDJSON or CSV, for
+ * backups, migrations and analysis.
+ *
+ * Export streams one forward-only result set (db.streamingFetchSize rows per fetch, i.e. row by row on
+ * MySQL) straight into the writer, in primary key order, so memory stays flat however big the table is;
+ * afterId resumes an interrupted export after the last key written.
+ *
+ * Import reads records one at a time and writes them bulk.chunkSize (1000) at a time, each chunk in
+ * its own transaction of multi-row INSERTs (bulk.rowsPerInsert rows each, sent as one JDBC batch).
+ * Rows keep the keys they were exported with. After every commit the caches and in-memory indexes
+ * are told about the new rows and the progress callback gets the number of records done; when an
+ * import stops on a bad record or a database error, that number is the offset to resume from.
+ */
+public class BulkDAO {
+    private static final int CHUNK_SIZE = Integer.getInteger("bulk.chunkSize", 1000);
+    private static final int ROWS_PER_INSERT = Integer.getInteger("bulk.rowsPerInsert", 100);
+
+    public enum Format {
+        NDJSON, CSV;
+
+        /** "ndjson" or "csv" (any case), or null for anything else. */
+        public static Format parse(String name) {
+            if (name == null) {
+                return null;
+            }
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "ndjson":
+                    return NDJSON;
+                case "csv":
+                    return CSV;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    // How a column is read, written and parsed; dates travel as their JDBC string forms
+    private enum Kind {
+        INT {
+            Object read(ResultSet rs, int col) throws SQLException {
+                long value = rs.getLong(col);
+                return rs.wasNull() ? null : value;
+            }
+
+            Object parse(String value) {
+                return Long.parseLong(value);
+            }
+        },
+        DECIMAL {
+            Object read(ResultSet rs, int col) throws SQLException {
+                return rs.getBigDecimal(col);
+            }
+
+            Object parse(String value) {
+                return new BigDecimal(value);
+            }
+        },
+        TEXT {
+            Object read(ResultSet rs, int col) throws SQLException {
+                return rs.getString(col);
+            }
+
+            Object parse(String value) {
+                return value;
+            }
+        },
+        DATE {
+            Object read(ResultSet rs, int col) throws SQLException {
+                Date value = rs.getDate(col);
+                return value == null ? null : value.toString();
+            }
+
+            Object parse(String value) {
+                return Date.valueOf(value);
+            }
+        },
+        TIMESTAMP {
+            Object read(ResultSet rs, int col) throws SQLException {
+                Timestamp value = rs.getTimestamp(col);
+                return value == null ? null : value.toString();
+            }
+
+            Object parse(String value) {
+                return Timestamp.valueOf(value);
+            }
+        };
+
+        /** The column as a Long, BigDecimal or String, or null. */
+        abstract Object read(ResultSet rs, int col) throws SQLException;
+
+        /** The value to bind for the exported string form; throws IllegalArgumentException if malformed. */
+        abstract Object parse(String value);
+    }
+
+    /** The tables that can be exported and imported; columns are in export order, the key first. */
+    public enum Table {
+        TASKS("tasks", "task_id", Kind.INT, "client_id", Kind.INT, "title", Kind.TEXT, "description", Kind.TEXT,
+                "budget", Kind.DECIMAL, "deadline", Kind.DATE, "skills_required", Kind.TEXT, "status", Kind.TEXT,
+                "created_at", Kind.TIMESTAMP) {
+            void imported(List<Object[]> rows) {
+                List<Task> tasks = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    Task task = new Task();
+                    task.setTaskId(intAt(row, 0));
+                    task.setClientId(intAt(row, 1));
+                    task.setTitle((String) row[2]);
+                    task.setDescription((String) row[3]);
+                    task.setBudget(row[4] == null ? 0 : ((BigDecimal) row[4]).doubleValue());
+                    task.setDeadline(row[5] == null ? null : row[5].toString());
+                    task.setSkillsRequired((String) row[6]);
+                    task.setStatus((String) row[7]);
+                    task.setCreatedAt((Timestamp) row[8]);
+                    tasks.add(task);
+                }
+                new TaskDAO().tasksImported(tasks);
+            }
+        },
+        APPLICATIONS("applications", "application_id", Kind.INT, "task_id", Kind.INT, "freelancer_id", Kind.INT,
+                "proposal_text", Kind.TEXT, "bid_amount", Kind.DECIMAL, "status", Kind.TEXT, "timestamp", Kind.TIMESTAMP) {
+            void imported(List<Object[]> rows) {
+                for (Object[] row : rows) {
+                    Application app = new Application(intAt(row, 1), intAt(row, 2), (String) row[3],
+                            row[4] == null ? 0 : ((BigDecimal) row[4]).doubleValue());
+                    app.setApplicationId(intAt(row, 0));
+                    app.setStatus((String) row[5]);
+                    app.setTimestamp((Timestamp) row[6]);
+                    BidStatsStore.getInstance().onApplication(app);
+                    ChangeVersions.taskDetailsChanged(app.getTaskId());
+                }
+            }
+        },
+        MESSAGES("messages", "msg_id", Kind.INT, "task_id", Kind.INT, "sender_id", Kind.INT, "receiver_id", Kind.INT,
+                "message", Kind.TEXT, "timestamp", Kind.TIMESTAMP) {
+            void imported(List<Object[]> rows) {
+                Set<Integer> chats = new LinkedHashSet<>();
+                for (Object[] row : rows) {
+                    chats.add(intAt(row, 1));
+                }
+                for (int taskId : chats) {
+                    ChangeVersions.chatChanged(taskId);
+                }
+            }
+        };
+
+        private final String name;
+        private final String[] columns;
+        private final Kind[] kinds;
+
+        Table(String name, Object... columnsAndKinds) {
+            this.name = name;
+            this.columns = new String[columnsAndKinds.length / 2];
+            this.kinds = new Kind[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = (String) columnsAndKinds[2 * i];
+                kinds[i] = (Kind) columnsAndKinds[2 * i + 1];
+            }
+        }
+
+        /** Tells the caches and indexes about rows that were just committed. */
+        abstract void imported(List<Object[]> rows);
+
+        public String getName() {
+            return name;
+        }
+
+        /** "tasks", "applications" or "messages" (any case), or null for anything else. */
+        public static Table parse(String name) {
+            for (Table table : values()) {
+                if (table.name.equalsIgnoreCase(name)) {
+                    return table;
+                }
+            }
+            return null;
+        }
+
+        private static int intAt(Object[] row, int i) {
+            return row[i] == null ? 0 : ((Long) row[i]).intValue();
+        }
+    }
+
+    /**
+     * Called after each committed chunk with the records done so far (the resume offset) and imported.
+     * An IOException, e.g. the client of the admin endpoint going away, ends the import after that chunk.
+     */
+    public interface Progress {
+        void chunkCommitted(long offset, long imported) throws IOException;
+    }
+
+    public static class ImportResult {
+        private final long offset;
+        private final long imported;
+        private final String error;
+
+        ImportResult(long offset, long imported, String error) {
+            this.offset = offset;
+            this.imported = imported;
+            this.error = error;
+        }
+
+        /** Records consumed, skipped ones included: where a rerun should resume. */
+        public long getOffset() { return offset; }
+        public long getImported() { return imported; }
+        /** Why the import stopped early, or null if it read the whole input. */
+        public String getError() { return error; }
+    }
+
+    /**
+     * Writes every row with a key above afterId to out, in key order, and returns the number of rows.
+     * Holds one connection for the whole export: a replica when ReadConsistency allows, else the primary.
+     */
+    public long export(Table table, Format format, long afterId, Writer out) throws SQLException, IOException {
+        long start = System.nanoTime();
+        String sql = "SELECT " + String.join(", ", table.columns) + " FROM " + table.name
+                + " WHERE " + table.columns[0] + " > ? ORDER BY " + table.columns[0];
+        long rows = 0;
+        JsonWriter json = null;
+        if (format == Format.NDJSON) {
+            json = new JsonWriter(out);
+            // Lenient: one top-level object after another, separated by the newlines written below
+            json.setLenient(true);
+        } else {
+            writeCsvRecord(out, table.columns);
+        }
+        Object[] row = new Object[table.columns.length];
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            ps.setFetchSize(DBConnection.getStreamingFetchSize());
+            ps.setLong(1, afterId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = table.kinds[i].read(rs, i + 1);
+                    }
+                    if (json != null) {
+                        writeJsonRecord(json, table.columns, row);
+                        out.write('\n');
+                    } else {
+                        writeCsvRecord(out, row);
+                    }
+                    rows++;
+                }
+            }
+            Metrics.recordQuery("BulkDAO.export", start, rows);
+        } catch (SQLException e) {
+            Metrics.recordQueryError("BulkDAO.export");
+            throw e;
+        }
+        out.flush();
+        return rows;
+    }
+
+    /**
+     * Reads records from in, skips the first offset of them, and inserts the rest chunk by chunk.
+     * Columns missing from a record are stored as NULL. Stops at the first malformed record or failed
+     * chunk; everything before that chunk stays committed.
+     */
+    public ImportResult importRows(Table table, Format format, Reader in, long offset, Progress progress) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        RecordReader records = format == Format.CSV ? new CsvRecords(table, reader) : new JsonRecords(table, reader);
+        long done = 0;
+        long imported = 0;
+        List<Object[]> chunk = new ArrayList<>();
+        try {
+            while (done < offset && records.next() != null) {
+                done++;
+            }
+            Object[] row;
+            do {
+                row = records.next();
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() >= CHUNK_SIZE || (row == null && !chunk.isEmpty())) {
+                    String error = insertChunk(table, chunk);
+                    if (error != null) {
+                        return new ImportResult(done, imported, "Records " + done + " to " + (done + chunk.size() - 1)
+                                + " not imported: " + error);
+                    }
+                    done += chunk.size();
+                    imported += chunk.size();
+                    table.imported(chunk);
+                    if (progress != null) {
+                        progress.chunkCommitted(done, imported);
+                    }
+                    chunk = new ArrayList<>();
+                }
+            } while (row != null);
+        } catch (IllegalArgumentException e) {
+            return new ImportResult(done, imported, "Record " + (done + chunk.size()) + ": " + e.getMessage());
+        }
+        return new ImportResult(done, imported, null);
+    }
+
+    // One transaction: full groups of ROWS_PER_INSERT rows as one batch of multi-row INSERTs, then the rest
+    private String insertChunk(Table table, List<Object[]> chunk) {
+        long start = System.nanoTime();
+        // MySQL allows 65535 placeholders per statement
+        int groupSize = Math.max(1, Math.min(ROWS_PER_INSERT, 65_535 / table.columns.length));
+        List<List<Object[]>> groups = new ArrayList<>();
+        int full = chunk.size() - chunk.size() % groupSize;
+        for (int from = 0; from < full; from += groupSize) {
+            groups.add(chunk.subList(from, from + groupSize));
+        }
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                JdbcTemplate.batchUpdate(conn, insertSql(table, groupSize), groups, BulkDAO::bind);
+                if (full < chunk.size()) {
+                    List<Object[]> rest = chunk.subList(full, chunk.size());
+                    try (PreparedStatement ps = conn.prepareStatement(insertSql(table, rest.size()))) {
+                        bind(ps, rest);
+                        ps.executeUpdate();
+                    }
+                }
+                conn.commit();
+                Metrics.recordQuery("BulkDAO.importChunk", start, chunk.size());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Metrics.recordQueryError("BulkDAO.importChunk");
+            e.printStackTrace();
+            // Some drivers append the statement, here a few hundred placeholders long
+            String message = String.valueOf(e.getMessage());
+            return message.contains("\n") ? message.substring(0, message.indexOf('\n')) : message;
+        }
+        ReadConsistency.recordWrite();
+        return null;
+    }
+
+    private static String insertSql(Table table, int rows) {
+        String group = "(" + JdbcTemplate.placeholders(table.columns.length) + ")";
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table.name)
+                .append(" (").append(String.join(", ", table.columns)).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "" : ", ").append(group);
+        }
+        return sql.toString();
+    }
+
+    private static void bind(PreparedStatement ps, List<Object[]> rows) throws SQLException {
+        int p = 1;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                if (value == null) {
+                    ps.setNull(p++, Types.NULL);
+                } else {
+                    ps.setObject(p++, value);
+                }
+            }
+        }
+    }
+
+    private static void writeJsonRecord(JsonWriter json, String[] columns, Object[] row) throws IOException {
+        json.beginObject();
+        for (int i = 0; i < columns.length; i++) {
+            json.name(columns[i]);
+            Object value = row[i];
+            if (value == null) {
+                json.nullValue();
+            } else if (value instanceof Number) {
+                json.value((Number) value);
+            } else {
+                json.value((String) value);
+            }
+        }
+        json.endObject();
+    }
+
+    // RFC 4180; NULL is an empty field and the empty string a quoted one, so both survive a round trip
+    private static void writeCsvRecord(Writer out, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String s = value.toString();
+            if (value instanceof Number || (!s.isEmpty() && !needsQuotes(s))) {
+                out.write(s);
+            } else {
+                out.write('"');
+                out.write(s.replace("\"", "\"\""));
+                out.write('"');
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private static boolean needsQuotes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Parsed records in table column order; null at the end of the input
+    private interface RecordReader {
+        Object[] next() throws IOException;
+    }
+
+    // One JSON object per line, keyed by column name; blank lines are skipped
+    private static final class JsonRecords implements RecordReader {
+        private final Table table;
+        private final BufferedReader in;
+
+        JsonRecords(Table table, BufferedReader in) {
+            this.table = table;
+            this.in = in;
+        }
+
+        public Object[] next() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.trim().isEmpty());
+            try {
+                JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+                Object[] row = new Object[table.columns.length];
+                for (int i = 0; i < row.length; i++) {
+                    JsonElement value = record.get(table.columns[i]);
+                    row[i] = value == null || value.isJsonNull() ? null : table.kinds[i].parse(value.getAsString());
+                }
+                return row;
+            } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+                throw new IllegalArgumentException("not a JSON object of column values: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // A header row naming the columns, then one row per record
+    private static final class CsvRecords implements RecordReader {
+        private final Table table;
+        private final BufferedReader in;
+        private int[] columnOf;
+
+        CsvRecords(Table table, BufferedReader in) {
+            this.table = table;
+            this.in = in;
+        }
+
+        public Object[] next() throws IOException {
+            if (columnOf == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                Map<String, Integer> positions = new HashMap<>();
+                for (int i = 0; i < table.columns.length; i++) {
+                    positions.put(table.columns[i], i);
+                }
+                columnOf = new int[header.size()];
+                for (int i = 0; i < columnOf.length; i++) {
+                    Integer column = header.get(i) == null ? null : positions.get(header.get(i).trim().toLowerCase(Locale.ROOT));
+                    if (column == null) {
+                        throw new IllegalArgumentException("unknown column " + header.get(i) + " in the CSV header");
+                    }
+                    columnOf[i] = column;
+                }
+            }
+            List<String> fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() != columnOf.length) {
+                throw new IllegalArgumentException("expected " + columnOf.length + " fields, found " + fields.size());
+            }
+            Object[] row = new Object[table.columns.length];
+            for (int i = 0; i < fields.size(); i++) {
+                String value = fields.get(i);
+                row[columnOf[i]] = value == null ? null : table.kinds[columnOf[i]].parse(value);
+            }
+            return row;
+        }
+
+        // The next non-blank record; an unquoted empty field is null. Quoted fields may span lines.
+        private List<String> readRecord() throws IOException {
+            while (true) {
+                List<String> fields = new ArrayList<>();
+                StringBuilder field = new StringBuilder();
+                boolean quoted = false;
+                boolean wasQuoted = false;
+                boolean any = false;
+                int c;
+                while ((c = in.read()) != -1) {
+                    any = true;
+                    if (quoted) {
+                        if (c != '"') {
+                            field.append((char) c);
+                            continue;
+                        }
+                        in.mark(1);
+                        int next = in.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                in.reset();
+                            }
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                        wasQuoted = true;
+                    } else if (c == ',') {
+                        fields.add(wasQuoted || field.length() > 0 ? field.toString() : null);
+                        field.setLength(0);
+                        wasQuoted = false;
+                    } else if (c == '\n') {
+                        break;
+                    } else if (c != '\r') {
+                        field.append((char) c);
+                    }
+                }
+                if (quoted) {
+                    throw new IllegalArgumentException("unterminated quoted field");
+                }
+                if (!any) {
+                    return null;
+                }
+                if (fields.isEmpty() && field.length() == 0 && !wasQuoted) {
+                    // Blank line
+                    continue;
+                }
+                fields.add(wasQuoted || field.length() > 0 ? field.toString() : null);
+                return fields;
+            }
+        }
+    }
+}
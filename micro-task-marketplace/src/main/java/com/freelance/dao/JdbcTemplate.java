@@ -0,0 +1,249 @@
+package com.freelance.dao;
+
+import com.freelance.utils.DBConnection;
+import com.freelance.utils.Metrics;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The open/prepare/bind/execute/map/close steps every DAO method used to spell out. Each call
+ * borrows a connection (the primary, or a replica for reads when ReadConsistency allows, see
+ * forRead), runs one statement, always closes the statement and result set, and records the query
+ * under its metric name. Errors are recorded, printed and answered with an empty result (empty
+ * list, null, -1), the way the DAOs already reported them; queryOneOrThrow is the exception.
+ *
+ * The static methods run on a connection the caller already holds, for multi-statement
+ * transactions, and throw SQLException so the caller can roll back.
+ *
+ * Statements are prepared through the pool, which caches them per connection, so reusing a SQL
+ * string across calls reuses the prepared statement.
+ */
+public final class JdbcTemplate {
+    private static final long PRIMARY = -1;
+    private static final JdbcTemplate ON_PRIMARY = new JdbcTemplate(PRIMARY);
+
+    /** Binds values that aren't simple query parameters, e.g. one batch entry. */
+    public interface Binder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    // PRIMARY, or the ChangeVersions timestamp passed to DBConnection.getReadConnection
+    private final long changedAt;
+
+    private JdbcTemplate(long changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    /** Runs everything on the primary: writes, and reads that must see the latest data. */
+    public static JdbcTemplate primary() {
+        return ON_PRIMARY;
+    }
+
+    /** Reads data last changed at changedAt (a ChangeVersions timestamp); may use a replica. */
+    public static JdbcTemplate forRead(long changedAt) {
+        return new JdbcTemplate(Math.max(0, changedAt));
+    }
+
+    private Connection connect() throws SQLException {
+        return changedAt == PRIMARY ? DBConnection.getConnection() : DBConnection.getReadConnection(changedAt);
+    }
+
+    /** All rows, or an empty list on error. */
+    public <T> List<T> query(String name, String sql, RowMapper<T> mapper, Object... params) {
+        List<T> rows = queryOrNull(name, sql, mapper, params);
+        return rows == null ? new ArrayList<>() : rows;
+    }
+
+    /** All rows, or null on error: for results that get cached, where a failure must not pass for "no rows". */
+    public <T> List<T> queryOrNull(String name, String sql, RowMapper<T> mapper, Object... params) {
+        long start = System.nanoTime();
+        try (Connection conn = connect()) {
+            List<T> rows = query(conn, sql, mapper, params);
+            Metrics.recordQuery(name, start, rows.size());
+            return rows;
+        } catch (SQLException e) {
+            Metrics.recordQueryError(name);
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /** The first row, or null if there is none or the query failed. */
+    public <T> T queryOne(String name, String sql, RowMapper<T> mapper, Object... params) {
+        try {
+            return first(name, sql, mapper, params);
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The first row, or null if there is none. A failed query throws IllegalStateException instead,
+     * for callers where "no row" means something (e.g. the session's user is gone) and must not be
+     * mistaken for a database error.
+     */
+    public <T> T queryOneOrThrow(String name, String sql, RowMapper<T> mapper, Object... params) {
+        try {
+            return first(name, sql, mapper, params);
+        } catch (SQLException e) {
+            throw new IllegalStateException(name + " failed", e);
+        }
+    }
+
+    private <T> T first(String name, String sql, RowMapper<T> mapper, Object[] params) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection conn = connect();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            bind(ps, params);
+            ps.setMaxRows(1);
+            try (ResultSet rs = ps.executeQuery()) {
+                T row = rs.next() ? mapper.mapRow(rs, mapper.layout(sql, rs)) : null;
+                Metrics.recordQuery(name, start, row == null ? 0 : 1);
+                return row;
+            }
+        } catch (SQLException e) {
+            Metrics.recordQueryError(name);
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Hands rows to the consumer one at a time without collecting them, with a forward-only
+     * cursor and the streaming fetch size (db.streamingFetchSize). Returns the number of rows.
+     */
+    public <T> long stream(String name, String sql, RowMapper<T> mapper, Consumer<T> consumer, Object... params) {
+        long start = System.nanoTime();
+        long rows = 0;
+        try (Connection conn = connect();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            ps.setFetchSize(DBConnection.getStreamingFetchSize());
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                int[] col = mapper.layout(sql, rs);
+                while (rs.next()) {
+                    consumer.accept(mapper.mapRow(rs, col));
+                    rows++;
+                }
+            }
+            Metrics.recordQuery(name, start, rows);
+        } catch (SQLException e) {
+            Metrics.recordQueryError(name);
+            e.printStackTrace();
+        }
+        return rows;
+    }
+
+    /** Rows affected, or -1 on error. */
+    public int update(String name, String sql, Object... params) {
+        long start = System.nanoTime();
+        try (Connection conn = connect()) {
+            int rows = update(conn, sql, params);
+            Metrics.recordQuery(name, start, rows);
+            return rows;
+        } catch (SQLException e) {
+            Metrics.recordQueryError(name);
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /** Runs an INSERT and returns the generated key, 0 if the driver returned none, or -1 on error. */
+    public long insert(String name, String sql, Object... params) {
+        long start = System.nanoTime();
+        try (Connection conn = connect();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            bind(ps, params);
+            int rows = ps.executeUpdate();
+            Metrics.recordQuery(name, start, rows);
+            if (rows == 0) {
+                return -1;
+            }
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                return keys.next() ? keys.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            Metrics.recordQueryError(name);
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /** Runs the statement once per item as one JDBC batch; update counts, or null on error. */
+    public <T> int[] batchUpdate(String name, String sql, Collection<T> items, Binder<T> binder) {
+        long start = System.nanoTime();
+        try (Connection conn = connect()) {
+            int[] counts = batchUpdate(conn, sql, items, binder);
+            Metrics.recordQuery(name, start, items.size());
+            return counts;
+        } catch (SQLException e) {
+            Metrics.recordQueryError(name);
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public static <T> List<T> query(Connection conn, String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                int[] col = mapper.layout(sql, rs);
+                while (rs.next()) {
+                    rows.add(mapper.mapRow(rs, col));
+                }
+            }
+        }
+        return rows;
+    }
+
+    public static int update(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            bind(ps, params);
+            return ps.executeUpdate();
+        }
+    }
+
+    public static <T> int[] batchUpdate(Connection conn, String sql, Collection<T> items, Binder<T> binder) throws SQLException {
+        if (items.isEmpty()) {
+            return new int[0];
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (T item : items) {
+                binder.bind(ps, item);
+                ps.addBatch();
+            }
+            return ps.executeBatch();
+        }
+    }
+
+    /** "?, ?, ?" for an IN list of n values. */
+    public static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder(n * 3);
+        for (int i = 0; i < n; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    private static void bind(PreparedStatement ps, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] == null) {
+                ps.setNull(i + 1, Types.NULL);
+            } else {
+                ps.setObject(i + 1, params[i]);
+            }
+        }
+    }
+}
@@ -1,53 +1,124 @@
 package com.freelance.dao;
 
 import com.freelance.models.Message;
+import com.freelance.utils.ChangeVersions;
 import com.freelance.utils.DBConnection;
+import com.freelance.utils.Metrics;
+import com.freelance.utils.ReadConsistency;
+import java.io.IOException;
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class MessageDAO {
+    private static final RowMapper<Message> MESSAGE_MAPPER = new RowMapper<Message>("msg_id", "task_id", "sender_id",
+            "receiver_id", "message", "timestamp", "sender_name") {
+        protected Message mapRow(ResultSet rs, int[] col) throws SQLException {
+            Message msg = new Message();
+            msg.setMsgId(getInt(rs, col[0]));
+            msg.setTaskId(getInt(rs, col[1]));
+            msg.setSenderId(getInt(rs, col[2]));
+            msg.setReceiverId(getInt(rs, col[3]));
+            msg.setMessage(getString(rs, col[4]));
+            msg.setTimestamp(getTimestamp(rs, col[5]));
+            msg.setSenderName(getString(rs, col[6]));
+            return msg;
+        }
+    };
+
+    private final MessageWriteBehind writeBehind;
+
+    public MessageDAO() {
+        this(null);
+    }
+
+    public MessageDAO(MessageWriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    /**
+     * Stores a message through the write-behind queue when one is configured, otherwise inline.
+     * The future completes with the stored message (msgId set) once it is committed.
+     */
+    public CompletableFuture<Message> queueMessage(Message msg) {
+        if (writeBehind != null) {
+            // Committed later on the writer thread; pin this session now
+            ReadConsistency.recordWrite();
+            return writeBehind.submit(msg);
+        }
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        if (sendMessage(msg)) {
+            result.complete(msg);
+        } else {
+            result.completeExceptionally(new SQLException("Failed to store message"));
+        }
+        return result;
+    }
+
     public boolean sendMessage(Message msg) {
         String sql = "INSERT INTO messages (task_id, sender_id, receiver_id, message) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, msg.getTaskId());
-            pstmt.setInt(2, msg.getSenderId());
-            pstmt.setInt(3, msg.getReceiverId());
-            pstmt.setString(4, msg.getMessage());
-            
-            int rows = pstmt.executeUpdate();
-            return rows > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
+        long msgId = JdbcTemplate.primary().insert("MessageDAO.sendMessage", sql,
+                msg.getTaskId(), msg.getSenderId(), msg.getReceiverId(), msg.getMessage());
+        if (msgId < 0) {
             return false;
         }
+        if (msgId > 0) {
+            msg.setMsgId((int) msgId);
+            msg.setTimestamp(new Timestamp(System.currentTimeMillis()));
+        }
+        ChangeVersions.chatChanged(msg.getTaskId());
+        ReadConsistency.recordWrite();
+        return true;
     }
 
     public List<Message> getMessages(int taskId) {
-        List<Message> messages = new ArrayList<>();
-        String sql = "SELECT m.*, u.name as sender_name FROM messages m JOIN users u ON m.sender_id = u.id WHERE m.task_id = ? ORDER BY m.timestamp ASC";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
+        String sql = "SELECT m.*, u.name as sender_name FROM messages m JOIN users u ON m.sender_id = u.id WHERE m.task_id = ? ORDER BY m.msg_id ASC";
+        return JdbcTemplate.forRead(ChangeVersions.chatChangedAt(taskId)).query("MessageDAO.getMessages", sql, MESSAGE_MAPPER, taskId);
+    }
+
+    /**
+     * Returns only messages newer than afterMsgId (oldest first), so a polling client
+     * fetches just the rows it has not seen yet. msg_id is auto-increment, so it orders
+     * messages the same way timestamp does while staying unique.
+     */
+    public List<Message> getMessagesSince(int taskId, int afterMsgId, int limit) {
+        String sql = "SELECT m.*, u.name as sender_name FROM messages m JOIN users u ON m.sender_id = u.id "
+                + "WHERE m.task_id = ? AND m.msg_id > ? ORDER BY m.msg_id ASC LIMIT ?";
+        return JdbcTemplate.forRead(ChangeVersions.chatChangedAt(taskId))
+                .query("MessageDAO.getMessagesSince", sql, MESSAGE_MAPPER, taskId, afterMsgId, limit);
+    }
+
+    /**
+     * Streams messages newer than afterMsgId (oldest first) to the handler row by row, so callers can
+     * serialize straight to the response without holding the conversation in memory.
+     * Returns the number of rows delivered. Unlike the list queries it throws on a database error, since
+     * the caller may already have written part of the answer and has to abort rather than finish it.
+     */
+    public int streamMessagesSince(int taskId, int afterMsgId, int limit, MessageHandler handler) throws IOException, SQLException {
+        long start = System.nanoTime();
+        String sql = "SELECT m.msg_id, m.task_id, m.sender_id, m.receiver_id, m.message, m.timestamp, u.name as sender_name "
+                + "FROM messages m JOIN users u ON m.sender_id = u.id "
+                + "WHERE m.task_id = ? AND m.msg_id > ? ORDER BY m.msg_id ASC LIMIT ?";
+        int rows = 0;
+        try (Connection conn = DBConnection.getReadConnection(ChangeVersions.chatChangedAt(taskId));
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(DBConnection.getStreamingFetchSize());
             pstmt.setInt(1, taskId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Message msg = new Message();
-                msg.setMsgId(rs.getInt("msg_id"));
-                msg.setTaskId(rs.getInt("task_id"));
-                msg.setSenderId(rs.getInt("sender_id"));
-                msg.setReceiverId(rs.getInt("receiver_id"));
-                msg.setMessage(rs.getString("message"));
-                msg.setTimestamp(rs.getTimestamp("timestamp"));
-                msg.setSenderName(rs.getString("sender_name"));
-                messages.add(msg);
+            pstmt.setInt(2, afterMsgId);
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.onMessage(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4),
+                            rs.getString(5), rs.getTimestamp(6), rs.getString(7));
+                    rows++;
+                }
             }
+            Metrics.recordQuery("MessageDAO.streamMessagesSince", start, rows);
         } catch (SQLException e) {
-            e.printStackTrace();
+            Metrics.recordQueryError("MessageDAO.streamMessagesSince");
+            throw e;
         }
-        return messages;
+        return rows;
     }
 }
@@ -0,0 +1,11 @@
+package com.freelance.dao;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+
+/** Receives message rows one at a time while MessageDAO streams a result set, without building Message objects. */
+@FunctionalInterface
+public interface MessageHandler {
+    void onMessage(int msgId, int taskId, int senderId, int receiverId, String message,
+                   Timestamp timestamp, String senderName) throws IOException;
+}
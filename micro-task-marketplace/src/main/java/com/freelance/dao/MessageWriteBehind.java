@@ -0,0 +1,241 @@
+package com.freelance.dao;
+
+import com.freelance.models.Message;
+import com.freelance.utils.ChangeVersions;
+import com.freelance.utils.DBConnection;
+import com.freelance.utils.Metrics;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for chat messages. Messages are accepted into a bounded queue and a
+ * single writer thread flushes them as one JDBC batch per transaction, as soon as either
+ * batchSize messages are waiting or lingerMs has passed since the first one arrived.
+ * Each submitted message gets a future that completes once its batch has committed, with the
+ * msg_id and timestamp the database assigned. If the batch is rejected (say, a task removed since
+ * the POST was checked), the rows are retried one per transaction so only the bad one fails.
+ */
+public class MessageWriteBehind {
+    private static final String INSERT_SQL = "INSERT INTO messages (task_id, sender_id, receiver_id, message) VALUES (?, ?, ?, ?)";
+
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long offerTimeoutMs;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public MessageWriteBehind(int capacity, int batchSize, long lingerMs, long offerTimeoutMs) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.writer = new Thread(this::run, "chat-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Returns null when -Dchat.writeBehind=true is not set. */
+    public static MessageWriteBehind fromSystemProperties() {
+        if (!Boolean.getBoolean("chat.writeBehind")) {
+            return null;
+        }
+        return new MessageWriteBehind(
+                Integer.getInteger("chat.writeBehind.capacity", 10_000),
+                Integer.getInteger("chat.writeBehind.batchSize", 100),
+                Long.getLong("chat.writeBehind.lingerMs", 5L),
+                Long.getLong("chat.writeBehind.offerTimeoutMs", 100L));
+    }
+
+    /**
+     * Queues a message. If the queue stays full for offerTimeoutMs the returned future fails
+     * with QueueFullException, so callers can push back on the client instead of piling up.
+     */
+    public CompletableFuture<Message> submit(Message msg) {
+        Pending p = new Pending(msg);
+        if (!running) {
+            p.future.completeExceptionally(new IllegalStateException("Write-behind queue is shut down"));
+            return p.future;
+        }
+        try {
+            if (!queue.offer(p, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                p.future.completeExceptionally(new QueueFullException());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            p.future.completeExceptionally(e);
+        }
+        return p.future;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** Stops accepting messages and waits for everything already queued to be written. */
+    public void shutdown(long timeoutMs) {
+        running = false;
+        try {
+            writer.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything that raced in after the writer stopped is failed rather than left hanging
+        List<Pending> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        for (Pending p : leftover) {
+            p.future.completeExceptionally(new IllegalStateException("Write-behind queue is shut down"));
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Keep draining; shutdown is signalled through the running flag
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        long start = System.nanoTime();
+        List<Pending> stored = new ArrayList<>(batch.size());
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                insert(conn, batch);
+                conn.commit();
+                stored.addAll(batch);
+                Metrics.recordQuery("MessageWriteBehind.flush", start, batch.size());
+            } catch (BatchUpdateException e) {
+                conn.rollback();
+                Metrics.recordQueryError("MessageWriteBehind.flush");
+                e.printStackTrace();
+                // One bad row must not fail everyone else's messages: retry them one per transaction
+                insertOneByOne(conn, batch, stored);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            Metrics.recordQueryError("MessageWriteBehind.flush");
+            e.printStackTrace();
+            for (Pending p : batch) {
+                if (!stored.contains(p)) {
+                    p.future.completeExceptionally(e);
+                }
+            }
+        }
+        for (Pending p : stored) {
+            ChangeVersions.chatChanged(p.msg.getTaskId());
+            p.future.complete(p.msg);
+        }
+    }
+
+    private void insertOneByOne(Connection conn, List<Pending> batch, List<Pending> stored) {
+        for (Pending p : batch) {
+            long start = System.nanoTime();
+            try {
+                insert(conn, Collections.singletonList(p));
+                conn.commit();
+                stored.add(p);
+                Metrics.recordQuery("MessageWriteBehind.flushOne", start, 1);
+            } catch (SQLException e) {
+                Metrics.recordQueryError("MessageWriteBehind.flushOne");
+                e.printStackTrace();
+                p.future.completeExceptionally(e);
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackFailed) {
+                    rollbackFailed.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Inserts the messages in the current transaction and fills in the msg_id and the timestamp the DB assigned
+    private static void insert(Connection conn, List<Pending> batch) throws SQLException {
+        Map<Integer, Message> byId = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Pending p : batch) {
+                pstmt.setInt(1, p.msg.getTaskId());
+                pstmt.setInt(2, p.msg.getSenderId());
+                pstmt.setInt(3, p.msg.getReceiverId());
+                pstmt.setString(4, p.msg.getMessage());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                for (Pending p : batch) {
+                    if (keys.next()) {
+                        p.msg.setMsgId(keys.getInt(1));
+                        byId.put(p.msg.getMsgId(), p.msg);
+                    }
+                }
+            }
+        }
+        if (byId.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT msg_id, timestamp FROM messages WHERE msg_id IN (" + JdbcTemplate.placeholders(byId.size()) + ")";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (int msgId : byId.keySet()) {
+                pstmt.setInt(i++, msgId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    byId.get(rs.getInt(1)).setTimestamp(rs.getTimestamp(2));
+                }
+            }
+        }
+    }
+
+    public static class QueueFullException extends Exception {
+        public QueueFullException() {
+            super("Chat write queue is full");
+        }
+    }
+
+    private static final class Pending {
+        final Message msg;
+        final CompletableFuture<Message> future = new CompletableFuture<>();
+
+        Pending(Message msg) {
+            this.msg = msg;
+        }
+    }
+}
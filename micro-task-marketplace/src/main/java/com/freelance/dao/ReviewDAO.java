@@ -0,0 +1,181 @@
+package com.freelance.dao;
+
+import com.freelance.models.Review;
+import com.freelance.utils.ChangeVersions;
+import com.freelance.utils.DBConnection;
+import com.freelance.utils.Metrics;
+import com.freelance.utils.ReadConsistency;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reviews, and the users.rating_sum / rating_count / rating aggregate they feed. The aggregate is
+ * updated in the same transaction as the review insert, so a profile read never has to AVG() reviews.
+ */
+public class ReviewDAO {
+    // rating is recomputed from the old sum and count, which both MySQL (left-to-right SET) and
+    // standard SQL (all-old values) agree on only when it is assigned first; "* 1.0" avoids integer division
+    private static final String APPLY_RATING = "UPDATE users SET rating = (rating_sum + ?) * 1.0 / (rating_count + 1), "
+            + "rating_sum = rating_sum + ?, rating_count = rating_count + 1 WHERE id = ?";
+
+    private static final RowMapper<Review> REVIEW_MAPPER = new RowMapper<Review>("review_id", "task_id", "reviewer_id",
+            "reviewed_id", "rating", "comment", "timestamp", "reviewer_name") {
+        protected Review mapRow(ResultSet rs, int[] col) throws SQLException {
+            Review review = new Review();
+            review.setReviewId(getInt(rs, col[0]));
+            review.setTaskId(getInt(rs, col[1]));
+            review.setReviewerId(getInt(rs, col[2]));
+            review.setReviewedId(getInt(rs, col[3]));
+            review.setRating(getInt(rs, col[4]));
+            review.setComment(getString(rs, col[5]));
+            review.setTimestamp(getTimestamp(rs, col[6]));
+            review.setReviewerName(getString(rs, col[7]));
+            return review;
+        }
+    };
+
+    // The task is finished and reviewer and reviewed are its client and assigned freelancer, either way round
+    private static final String PARTICIPANTS = "SELECT t.task_id FROM tasks t "
+            + "JOIN applications a ON a.task_id = t.task_id AND a.status = 'ASSIGNED' "
+            + "WHERE t.task_id = ? AND t.status = 'COMPLETED' "
+            + "AND ((t.client_id = ? AND a.freelancer_id = ?) OR (a.freelancer_id = ? AND t.client_id = ?))";
+
+    private static final RowMapper<Integer> TASK_ID_MAPPER = new RowMapper<Integer>("task_id") {
+        protected Integer mapRow(ResultSet rs, int[] col) throws SQLException {
+            return getInt(rs, col[0]);
+        }
+    };
+
+    /** Whether reviewerId may review reviewedId for the task: only its two parties, once it is completed. */
+    public boolean canReview(int taskId, int reviewerId, int reviewedId) {
+        return JdbcTemplate.primary().queryOne("ReviewDAO.canReview", PARTICIPANTS, TASK_ID_MAPPER,
+                taskId, reviewerId, reviewedId, reviewerId, reviewedId) != null;
+    }
+
+    /** False on failure, including a second review of the same task by the same reviewer (unique key). */
+    public boolean submitReview(Review review) {
+        long start = System.nanoTime();
+        String sql = "INSERT INTO reviews (task_id, reviewer_id, reviewed_id, rating, comment) VALUES (?, ?, ?, ?, ?)";
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement apply = conn.prepareStatement(APPLY_RATING)) {
+
+                insert.setInt(1, review.getTaskId());
+                insert.setInt(2, review.getReviewerId());
+                insert.setInt(3, review.getReviewedId());
+                insert.setInt(4, review.getRating());
+                insert.setString(5, review.getComment());
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        review.setReviewId(keys.getInt(1));
+                    }
+                }
+
+                apply.setInt(1, review.getRating());
+                apply.setInt(2, review.getRating());
+                apply.setInt(3, review.getReviewedId());
+                if (apply.executeUpdate() != 1) {
+                    conn.rollback();
+                    return false;
+                }
+                conn.commit();
+                Metrics.recordQuery("ReviewDAO.submitReview", start, 1);
+                UserDAO.invalidateUser(review.getReviewedId());
+                ReadConsistency.recordWrite();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Metrics.recordQueryError("ReviewDAO.submitReview");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /** Most recent reviews of a user, newest first. */
+    public List<Review> getReviewsFor(int userId, int limit) {
+        String sql = "SELECT r.*, u.name as reviewer_name FROM reviews r JOIN users u ON r.reviewer_id = u.id "
+                + "WHERE r.reviewed_id = ? ORDER BY r.review_id DESC LIMIT ?";
+        return JdbcTemplate.forRead(ChangeVersions.userChangedAt(userId))
+                .query("ReviewDAO.getReviewsFor", sql, REVIEW_MAPPER, userId, limit);
+    }
+
+    /**
+     * Repair job: rebuilds every user's rating_sum, rating_count and rating from the reviews table,
+     * a chunk of users at a time. Each chunk is one transaction: the users rows are locked first and
+     * their totals summed from reviews after, so a review committed before the lock is counted, and
+     * one still in flight adds itself (submitReview updates the same row) after the chunk commits.
+     * Submissions can carry on meanwhile. Returns the number of users written.
+     */
+    public int recomputeRatings(int chunkSize) {
+        long start = System.nanoTime();
+        int written = 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement lock = conn.prepareStatement("SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ? FOR UPDATE");
+                 PreparedStatement sums = conn.prepareStatement("SELECT reviewed_id, SUM(rating), COUNT(*) FROM reviews "
+                         + "WHERE reviewed_id BETWEEN ? AND ? GROUP BY reviewed_id");
+                 PreparedStatement update = conn.prepareStatement("UPDATE users SET rating_sum = ?, rating_count = ?, rating = ? WHERE id = ?")) {
+                int after = 0;
+                while (true) {
+                    List<Integer> ids = new ArrayList<>(chunkSize);
+                    lock.setInt(1, after);
+                    lock.setInt(2, chunkSize);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getInt("id"));
+                        }
+                    }
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+
+                    // reviewed_id -> {sum, count}
+                    Map<Integer, int[]> totals = new HashMap<>();
+                    sums.setInt(1, ids.get(0));
+                    sums.setInt(2, ids.get(ids.size() - 1));
+                    try (ResultSet rs = sums.executeQuery()) {
+                        while (rs.next()) {
+                            totals.put(rs.getInt(1), new int[]{rs.getInt(2), rs.getInt(3)});
+                        }
+                    }
+
+                    for (int id : ids) {
+                        int[] t = totals.getOrDefault(id, new int[2]);
+                        update.setInt(1, t[0]);
+                        update.setInt(2, t[1]);
+                        update.setDouble(3, t[1] == 0 ? 0 : (double) t[0] / t[1]);
+                        update.setInt(4, id);
+                        update.addBatch();
+                    }
+                    update.executeBatch();
+                    conn.commit();
+                    for (int id : ids) {
+                        UserDAO.invalidateUser(id);
+                    }
+                    written += ids.size();
+                    after = ids.get(ids.size() - 1);
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            Metrics.recordQuery("ReviewDAO.recomputeRatings", start, written);
+        } catch (SQLException e) {
+            Metrics.recordQueryError("ReviewDAO.recomputeRatings");
+            e.printStackTrace();
+        }
+        return written;
+    }
+}
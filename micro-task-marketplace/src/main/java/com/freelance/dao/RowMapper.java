@@ -0,0 +1,71 @@
+package com.freelance.dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns result set rows into objects by column position. A mapper names the columns it can read;
+ * JdbcTemplate looks their positions up from the result set metadata the first time a query runs
+ * and reuses them for every later row and execution of the same SQL, so mapping a row does no
+ * name lookups. A column the query doesn't select gets position 0, and the get helpers below
+ * return null / 0 for it, so one mapper serves both "SELECT *" and narrower column lists.
+ */
+public abstract class RowMapper<T> {
+    // Dynamic SQL (IN lists) can produce many shapes; past this many the layouts are simply recomputed
+    private static final int MAX_LAYOUTS = 256;
+
+    private final String[] columns;
+    private final Map<String, int[]> layouts = new ConcurrentHashMap<>();
+
+    protected RowMapper(String... columns) {
+        this.columns = columns;
+    }
+
+    /** Maps the current row; col[i] is the position of the i-th column given to the constructor. */
+    protected abstract T mapRow(ResultSet rs, int[] col) throws SQLException;
+
+    int[] layout(String sql, ResultSet rs) throws SQLException {
+        int[] col = layouts.get(sql);
+        if (col == null) {
+            col = resolve(rs.getMetaData());
+            if (layouts.size() < MAX_LAYOUTS) {
+                layouts.put(sql, col);
+            }
+        }
+        return col;
+    }
+
+    private int[] resolve(ResultSetMetaData meta) throws SQLException {
+        int[] col = new int[columns.length];
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            String label = meta.getColumnLabel(i);
+            for (int c = 0; c < columns.length; c++) {
+                // First match wins, as with rs.getXxx(name) on a join that repeats a column name
+                if (col[c] == 0 && columns[c].equalsIgnoreCase(label)) {
+                    col[c] = i;
+                }
+            }
+        }
+        return col;
+    }
+
+    protected static int getInt(ResultSet rs, int col) throws SQLException {
+        return col == 0 ? 0 : rs.getInt(col);
+    }
+
+    protected static double getDouble(ResultSet rs, int col) throws SQLException {
+        return col == 0 ? 0 : rs.getDouble(col);
+    }
+
+    protected static String getString(ResultSet rs, int col) throws SQLException {
+        return col == 0 ? null : rs.getString(col);
+    }
+
+    protected static Timestamp getTimestamp(ResultSet rs, int col) throws SQLException {
+        return col == 0 ? null : rs.getTimestamp(col);
+    }
+}
@@ -1,82 +1,278 @@
 package com.freelance.dao;
 
 import com.freelance.models.Task;
+import com.freelance.models.TaskPage;
+import com.freelance.search.SkillIndex;
+import com.freelance.search.TaskSearchIndex;
+import com.freelance.services.DeadlineScheduler;
+import com.freelance.services.RecommendationService;
+import com.freelance.utils.ChangeVersions;
 import com.freelance.utils.DBConnection;
+import com.freelance.utils.LruCache;
+import com.freelance.utils.Metrics;
+import com.freelance.utils.ReadConsistency;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class TaskDAO {
+    // Shared by every TaskDAO instance; writes below invalidate them
+    private static final LruCache<Integer, Task> TASK_CACHE = new LruCache<>("tasks",
+            Integer.getInteger("cache.tasks.maxSize", 10_000), Long.getLong("cache.tasks.ttlMs", 60_000L));
+    private static final LruCache<String, TaskPage> PAGE_CACHE = new LruCache<>("task_pages",
+            Integer.getInteger("cache.taskPages.maxSize", 500), Long.getLong("cache.taskPages.ttlMs", 10_000L));
+
+    private static final String COLUMNS = "task_id, client_id, title, description, budget, deadline, skills_required, status, created_at";
+
+    // client_name comes from the users join where there is one
+    static final RowMapper<Task> TASK_MAPPER = new RowMapper<Task>("task_id", "client_id", "title", "description",
+            "budget", "deadline", "skills_required", "status", "created_at", "client_name") {
+        protected Task mapRow(ResultSet rs, int[] col) throws SQLException {
+            Task task = new Task();
+            task.setTaskId(getInt(rs, col[0]));
+            task.setClientId(getInt(rs, col[1]));
+            task.setTitle(getString(rs, col[2]));
+            task.setDescription(getString(rs, col[3]));
+            task.setBudget(getDouble(rs, col[4]));
+            task.setDeadline(getString(rs, col[5]));
+            task.setSkillsRequired(getString(rs, col[6]));
+            task.setStatus(getString(rs, col[7]));
+            task.setCreatedAt(getTimestamp(rs, col[8]));
+            task.setClientName(getString(rs, col[9]));
+            return task;
+        }
+    };
+
+    public static LruCache<Integer, Task> getTaskCache() {
+        return TASK_CACHE;
+    }
+
+    public static LruCache<String, TaskPage> getPageCache() {
+        return PAGE_CACHE;
+    }
 
     public boolean createTask(Task task) {
         String sql = "INSERT INTO tasks (client_id, title, description, budget, deadline, skills_required) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, task.getClientId());
-            pstmt.setString(2, task.getTitle());
-            pstmt.setString(3, task.getDescription());
-            pstmt.setDouble(4, task.getBudget());
-            pstmt.setDate(5, Date.valueOf(task.getDeadline())); // Assuming YYYY-MM-DD format
-            pstmt.setString(6, task.getSkillsRequired());
-            
-            int rows = pstmt.executeUpdate();
-            return rows > 0;
-        } catch (SQLException e) {
+        long taskId;
+        try {
+            taskId = JdbcTemplate.primary().insert("TaskDAO.createTask", sql, task.getClientId(), task.getTitle(),
+                    task.getDescription(), task.getBudget(), Date.valueOf(task.getDeadline()), task.getSkillsRequired()); // Assuming YYYY-MM-DD format
+        } catch (IllegalArgumentException e) {
             e.printStackTrace();
             return false;
         }
+        if (taskId < 0) {
+            return false;
+        }
+        if (taskId > 0) {
+            task.setTaskId((int) taskId);
+        }
+        if (task.getStatus() == null) {
+            task.setStatus("OPEN");
+        }
+        task.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        ChangeVersions.taskChanged(task.getTaskId());
+        PAGE_CACHE.invalidateAll();
+        taskChanged(task);
+        ReadConsistency.recordWrite();
+        return true;
     }
 
-    public List<Task> getAllTasks() {
-        List<Task> tasks = new ArrayList<>();
-        String sql = "SELECT t.*, u.name as client_name FROM tasks t JOIN users u ON t.client_id = u.id ORDER BY t.created_at DESC";
-        try (Connection conn = DBConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                Task task = new Task();
-                task.setTaskId(rs.getInt("task_id"));
-                task.setClientId(rs.getInt("client_id"));
-                task.setTitle(rs.getString("title"));
-                task.setDescription(rs.getString("description"));
-                task.setBudget(rs.getDouble("budget"));
-                task.setDeadline(rs.getString("deadline"));
-                task.setSkillsRequired(rs.getString("skills_required"));
-                task.setStatus(rs.getString("status"));
-                task.setClientName(rs.getString("client_name"));
-                tasks.add(task);
+    public boolean updateTaskStatus(int taskId, String status) {
+        String sql = "UPDATE tasks SET status = ? WHERE task_id = ?";
+        int rows = JdbcTemplate.primary().update("TaskDAO.updateTaskStatus", sql, status, taskId);
+        if (rows < 0) {
+            return false;
+        }
+        if (rows > 0) {
+            ChangeVersions.taskChanged(taskId);
+        }
+        TASK_CACHE.invalidate(taskId);
+        PAGE_CACHE.invalidateAll();
+        if (rows > 0) {
+            // Reloaded below; must come from the primary
+            ReadConsistency.recordWrite();
+            Task task = getTaskById(taskId);
+            if (task != null) {
+                taskChanged(task);
+            }
+        }
+        return rows > 0;
+    }
+
+    /**
+     * Moves the given tasks from OPEN to CLOSED with one locking SELECT and one UPDATE; tasks no
+     * longer OPEN are left alone. Returns the tasks that were closed, already updated in the caches
+     * and indexes, or null if the statements failed.
+     */
+    public List<Task> closeOpenTasks(List<Integer> taskIds) {
+        if (taskIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        String in = JdbcTemplate.placeholders(taskIds.size());
+        Object[] ids = taskIds.toArray();
+        List<Task> closed;
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                closed = JdbcTemplate.query(conn, "SELECT " + COLUMNS + " FROM tasks WHERE status = 'OPEN' AND task_id IN (" + in + ") FOR UPDATE",
+                        TASK_MAPPER, ids);
+                if (!closed.isEmpty()) {
+                    JdbcTemplate.update(conn, "UPDATE tasks SET status = 'CLOSED' WHERE status = 'OPEN' AND task_id IN (" + in + ")", ids);
+                }
+                conn.commit();
+                Metrics.recordQuery("TaskDAO.closeOpenTasks", start, closed.size());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         } catch (SQLException e) {
+            Metrics.recordQueryError("TaskDAO.closeOpenTasks");
             e.printStackTrace();
+            return null;
         }
-        return tasks;
+        if (!closed.isEmpty()) {
+            for (Task task : closed) {
+                ChangeVersions.taskChanged(task.getTaskId());
+            }
+            PAGE_CACHE.invalidateAll();
+            for (Task task : closed) {
+                task.setStatus("CLOSED");
+                TASK_CACHE.invalidate(task.getTaskId());
+                taskChanged(task);
+            }
+        }
+        return closed;
+    }
+
+    public List<Task> getAllTasks() {
+        String sql = "SELECT t.*, u.name as client_name FROM tasks t JOIN users u ON t.client_id = u.id ORDER BY t.created_at DESC";
+        return JdbcTemplate.forRead(ChangeVersions.tasksChangedAt()).query("TaskDAO.getAllTasks", sql, TASK_MAPPER);
+    }
+
+    /**
+     * Keyset (seek) pagination over (created_at, task_id), newest first. Each page starts
+     * right after the cursor row, so page N costs the same index range scan as page 1.
+     * Any filter may be null; cursor is null for the first page. Returns null if the query failed.
+     */
+    public TaskPage getTasksPage(String status, Double minBudget, Double maxBudget, String cursor, int limit) {
+        String key = status + "|" + minBudget + "|" + maxBudget + "|" + cursor + "|" + limit;
+        return PAGE_CACHE.get(key, k -> loadTasksPage(status, minBudget, maxBudget, cursor, limit));
+    }
+
+    private TaskPage loadTasksPage(String status, Double minBudget, Double maxBudget, String cursor, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT t.*, u.name as client_name FROM tasks t JOIN users u ON t.client_id = u.id WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        if (status != null) {
+            sql.append(" AND t.status = ?");
+            params.add(status);
+        }
+        if (minBudget != null) {
+            sql.append(" AND t.budget >= ?");
+            params.add(minBudget);
+        }
+        if (maxBudget != null) {
+            sql.append(" AND t.budget <= ?");
+            params.add(maxBudget);
+        }
+        if (cursor != null) {
+            Timestamp createdAt = TaskPage.cursorCreatedAt(cursor);
+            sql.append(" AND (t.created_at < ? OR (t.created_at = ? AND t.task_id < ?))");
+            params.add(createdAt);
+            params.add(createdAt);
+            params.add(TaskPage.cursorTaskId(cursor));
+        }
+        // Fetch one extra row to know whether another page exists
+        sql.append(" ORDER BY t.created_at DESC, t.task_id DESC LIMIT ?");
+        params.add(limit + 1);
+
+        List<Task> tasks = JdbcTemplate.forRead(ChangeVersions.tasksChangedAt())
+                .queryOrNull("TaskDAO.getTasksPage", sql.toString(), TASK_MAPPER, params.toArray());
+        if (tasks == null) {
+            // Not cached (LruCache skips nulls), so the next request retries
+            return null;
+        }
+
+        String nextCursor = null;
+        if (tasks.size() > limit) {
+            tasks.remove(limit);
+            nextCursor = TaskPage.encodeCursor(tasks.get(limit - 1));
+        }
+        return new TaskPage(tasks, nextCursor);
     }
 
     public Task getTaskById(int taskId) {
+        return TASK_CACHE.get(taskId, this::loadTaskById);
+    }
+
+    private Task loadTaskById(int taskId) {
         String sql = "SELECT t.*, u.name as client_name FROM tasks t JOIN users u ON t.client_id = u.id WHERE t.task_id = ?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, taskId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                Task task = new Task();
-                task.setTaskId(rs.getInt("task_id"));
-                task.setClientId(rs.getInt("client_id"));
-                task.setTitle(rs.getString("title"));
-                task.setDescription(rs.getString("description"));
-                task.setBudget(rs.getDouble("budget"));
-                task.setDeadline(rs.getString("deadline"));
-                task.setSkillsRequired(rs.getString("skills_required"));
-                task.setStatus(rs.getString("status"));
-                task.setClientName(rs.getString("client_name"));
-                return task;
+        return JdbcTemplate.forRead(ChangeVersions.taskChangedAt(taskId)).queryOne("TaskDAO.getTaskById", sql, TASK_MAPPER, taskId);
+    }
+
+    /** The tasks in the order of the ids, skipping ids that don't exist. Cache misses are read with one IN query. */
+    public List<Task> getTasksByIds(List<Integer> taskIds) {
+        Map<Integer, Task> found = TASK_CACHE.getAll(taskIds, this::loadTasksByIds);
+        List<Task> tasks = new ArrayList<>(taskIds.size());
+        for (int id : taskIds) {
+            Task task = found.get(id);
+            if (task != null) {
+                tasks.add(task);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return null;
+        return tasks;
+    }
+
+    private Map<Integer, Task> loadTasksByIds(List<Integer> taskIds) {
+        // A replica is fine only if it has caught up with the most recently changed of them
+        long changedAt = 0;
+        for (int id : taskIds) {
+            changedAt = Math.max(changedAt, ChangeVersions.taskChangedAt(id));
+        }
+        String sql = "SELECT t.*, u.name as client_name FROM tasks t JOIN users u ON t.client_id = u.id WHERE t.task_id IN ("
+                + JdbcTemplate.placeholders(taskIds.size()) + ")";
+        Map<Integer, Task> loaded = new HashMap<>();
+        for (Task task : JdbcTemplate.forRead(changedAt).query("TaskDAO.getTasksByIds", sql, TASK_MAPPER, taskIds.toArray())) {
+            loaded.put(task.getTaskId(), task);
+        }
+        return loaded;
+    }
+
+    /**
+     * Streams tasks (optionally only those with the given status) to the consumer one row at a time,
+     * without materializing the table. Used to build in-memory indexes at startup.
+     */
+    public void forEachTask(String status, Consumer<Task> consumer) {
+        String sql = "SELECT " + COLUMNS + " FROM tasks" + (status != null ? " WHERE status = ?" : "");
+        Object[] params = status != null ? new Object[]{status} : new Object[0];
+        JdbcTemplate.primary().stream("TaskDAO.forEachTask", sql, TASK_MAPPER, consumer, params);
+    }
+
+    // Rows BulkDAO just imported: nothing cached can include them yet, and the indexes need them
+    void tasksImported(List<Task> tasks) {
+        for (Task task : tasks) {
+            ChangeVersions.taskChanged(task.getTaskId());
+        }
+        PAGE_CACHE.invalidateAll();
+        for (Task task : tasks) {
+            TASK_CACHE.invalidate(task.getTaskId());
+            taskChanged(task);
+        }
+    }
+
+    // Keeps the in-memory indexes in step with a task that was just created or changed. The caller
+    // has already bumped ChangeVersions, right after the write and before invalidating the caches:
+    // a reload that starts after the bump reads from the primary, never from a lagging replica
+    private void taskChanged(Task task) {
+        SkillIndex.getInstance().onTaskChanged(task);
+        TaskSearchIndex.getInstance().onTaskChanged(task);
+        RecommendationService.getInstance().onTaskChanged(task);
+        DeadlineScheduler.getInstance().onTaskChanged(task);
     }
 }
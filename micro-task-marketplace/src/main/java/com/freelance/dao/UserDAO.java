@@ -1,52 +1,83 @@
 package com.freelance.dao;
 
 import com.freelance.models.User;
-import com.freelance.utils.DBConnection;
-import java.sql.*;
+import com.freelance.utils.ChangeVersions;
+import com.freelance.utils.LruCache;
+import com.freelance.utils.ReadConsistency;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 
 public class UserDAO {
+    // Profiles by id, shared by every UserDAO instance; sessions only keep a UserPrincipal and resolve through this
+    private static final LruCache<Integer, User> USER_CACHE = new LruCache<>("users",
+            Integer.getInteger("cache.users.maxSize", 10_000), Long.getLong("cache.users.ttlMs", 300_000L));
+
+    private static final RowMapper<User> USER_MAPPER = new RowMapper<User>("id", "name", "email", "role", "bio",
+            "skills", "rating", "rating_count") {
+        protected User mapRow(ResultSet rs, int[] col) throws SQLException {
+            User user = new User();
+            user.setId(getInt(rs, col[0]));
+            user.setName(getString(rs, col[1]));
+            user.setEmail(getString(rs, col[2]));
+            user.setRole(getString(rs, col[3]));
+            user.setBio(getString(rs, col[4]));
+            user.setSkills(getString(rs, col[5]));
+            user.setRating(getDouble(rs, col[6]));
+            user.setRatingCount(getInt(rs, col[7]));
+            return user;
+        }
+    };
+
+    public static LruCache<Integer, User> getUserCache() {
+        return USER_CACHE;
+    }
+
+    /** Drops a cached profile after its row changed (profile edit, new review). */
+    public static void invalidateUser(int userId) {
+        ChangeVersions.userChanged(userId);
+        USER_CACHE.invalidate(userId);
+    }
 
     public boolean registerUser(User user) {
         String sql = "INSERT INTO users (name, email, password, role) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, user.getName());
-            pstmt.setString(2, user.getEmail());
-            pstmt.setString(3, user.getPassword());
-            pstmt.setString(4, user.getRole());
-            
-            int rows = pstmt.executeUpdate();
-            return rows > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+        int rows = JdbcTemplate.primary().update("UserDAO.registerUser", sql, user.getName(), user.getEmail(), user.getPassword(), user.getRole());
+        if (rows > 0) {
+            ReadConsistency.recordWrite();
         }
+        return rows > 0;
     }
 
     public User loginUser(String email, String password) {
         String sql = "SELECT * FROM users WHERE email = ? AND password = ?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, email);
-            pstmt.setString(2, password);
-            
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                User user = new User();
-                user.setId(rs.getInt("id"));
-                user.setName(rs.getString("name"));
-                user.setEmail(rs.getString("email"));
-                user.setRole(rs.getString("role"));
-                user.setBio(rs.getString("bio"));
-                user.setSkills(rs.getString("skills"));
-                user.setRating(rs.getDouble("rating"));
-                return user;
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        User user = JdbcTemplate.primary().queryOne("UserDAO.loginUser", sql, USER_MAPPER, email, password);
+        if (user != null) {
+            USER_CACHE.put(user.getId(), user);
         }
-        return null;
+        return user;
+    }
+
+    /**
+     * Profile by id, from the cache when warm, or null if there is no such user; rating and
+     * ratingCount are maintained by ReviewDAO. A database failure throws IllegalStateException
+     * rather than passing for a missing user.
+     */
+    public User getUserById(int id) {
+        return USER_CACHE.get(id, this::loadUserById);
+    }
+
+    public boolean updateProfile(User user) {
+        String sql = "UPDATE users SET name = ?, bio = ?, skills = ? WHERE id = ?";
+        int rows = JdbcTemplate.primary().update("UserDAO.updateProfile", sql, user.getName(), user.getBio(), user.getSkills(), user.getId());
+        if (rows < 0) {
+            return false;
+        }
+        invalidateUser(user.getId());
+        ReadConsistency.recordWrite();
+        return rows > 0;
+    }
+
+    private User loadUserById(int id) {
+        String sql = "SELECT * FROM users WHERE id = ?";
+        return JdbcTemplate.forRead(ChangeVersions.userChangedAt(id)).queryOneOrThrow("UserDAO.getUserById", sql, USER_MAPPER, id);
     }
 }
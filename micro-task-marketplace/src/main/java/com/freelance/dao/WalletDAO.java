@@ -0,0 +1,109 @@
+package com.freelance.dao;
+
+import com.freelance.models.Wallet;
+import com.freelance.models.WalletTransaction;
+import com.freelance.utils.Metrics;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wallet and ledger rows. The read methods open their own connection; the write methods take the
+ * caller's connection so LedgerService can combine them into one database transaction.
+ */
+public class WalletDAO {
+    private static final RowMapper<Wallet> WALLET_MAPPER = new RowMapper<Wallet>("wallet_id", "user_id", "balance", "version", "updated_at") {
+        protected Wallet mapRow(ResultSet rs, int[] col) throws SQLException {
+            Wallet wallet = new Wallet();
+            wallet.setWalletId(getInt(rs, col[0]));
+            wallet.setUserId(getInt(rs, col[1]));
+            BigDecimal balance = rs.getBigDecimal(col[2]);
+            wallet.setBalance(balance == null ? BigDecimal.ZERO : balance);
+            wallet.setVersion(rs.getLong(col[3]));
+            wallet.setUpdatedAt(getTimestamp(rs, col[4]));
+            return wallet;
+        }
+    };
+
+    private static final RowMapper<WalletTransaction> TRANSACTION_MAPPER = new RowMapper<WalletTransaction>("txn_id", "user_id",
+            "amount", "type", "reason", "timestamp") {
+        protected WalletTransaction mapRow(ResultSet rs, int[] col) throws SQLException {
+            WalletTransaction txn = new WalletTransaction();
+            txn.setTxnId(getInt(rs, col[0]));
+            txn.setUserId(getInt(rs, col[1]));
+            txn.setAmount(rs.getBigDecimal(col[2]));
+            txn.setType(getString(rs, col[3]));
+            txn.setReason(getString(rs, col[4]));
+            txn.setTimestamp(getTimestamp(rs, col[5]));
+            return txn;
+        }
+    };
+
+    public Wallet getWallet(int userId) {
+        String sql = "SELECT wallet_id, user_id, balance, version, updated_at FROM wallet WHERE user_id = ?";
+        return JdbcTemplate.primary().queryOne("WalletDAO.getWallet", sql, WALLET_MAPPER, userId);
+    }
+
+    /** Most recent ledger rows for a user, newest first. */
+    public List<WalletTransaction> getTransactions(int userId, int limit) {
+        String sql = "SELECT txn_id, user_id, amount, type, reason, timestamp FROM transactions WHERE user_id = ? ORDER BY txn_id DESC LIMIT ?";
+        return JdbcTemplate.primary().query("WalletDAO.getTransactions", sql, TRANSACTION_MAPPER, userId, limit);
+    }
+
+    /** Current balance and version of each existing wallet among userIds, keyed by user id. */
+    public Map<Integer, Wallet> loadWallets(Connection conn, Collection<Integer> userIds) throws SQLException {
+        long start = System.nanoTime();
+        Map<Integer, Wallet> wallets = new HashMap<>();
+        String sql = "SELECT wallet_id, user_id, balance, version, updated_at FROM wallet WHERE user_id IN ("
+                + JdbcTemplate.placeholders(userIds.size()) + ")";
+        for (Wallet wallet : JdbcTemplate.query(conn, sql, WALLET_MAPPER, userIds.toArray())) {
+            wallets.put(wallet.getUserId(), wallet);
+        }
+        Metrics.recordQuery("WalletDAO.loadWallets", start, wallets.size());
+        return wallets;
+    }
+
+    /** Opens empty wallets; fails with a constraint violation if one was created concurrently. */
+    public void createWallets(Connection conn, Collection<Integer> userIds) throws SQLException {
+        long start = System.nanoTime();
+        JdbcTemplate.batchUpdate(conn, "INSERT INTO wallet (user_id, balance, version) VALUES (?, 0, 0)", userIds,
+                (ps, userId) -> ps.setInt(1, userId));
+        Metrics.recordQuery("WalletDAO.createWallets", start, userIds.size());
+    }
+
+    /**
+     * Writes the new balances as one batch, each guarded by the version it was read at.
+     * Returns false if any wallet changed underneath us; the caller must roll back and retry.
+     */
+    public boolean updateBalances(Connection conn, Collection<Wallet> wallets) throws SQLException {
+        long start = System.nanoTime();
+        int[] counts = JdbcTemplate.batchUpdate(conn, "UPDATE wallet SET balance = ?, version = version + 1 WHERE user_id = ? AND version = ?",
+                wallets, (ps, wallet) -> {
+                    ps.setBigDecimal(1, wallet.getBalance());
+                    ps.setInt(2, wallet.getUserId());
+                    ps.setLong(3, wallet.getVersion());
+                });
+        Metrics.recordQuery("WalletDAO.updateBalances", start, counts.length);
+        for (int count : counts) {
+            if (count != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void insertTransactions(Connection conn, List<WalletTransaction> txns) throws SQLException {
+        long start = System.nanoTime();
+        JdbcTemplate.batchUpdate(conn, "INSERT INTO transactions (user_id, amount, type, reason) VALUES (?, ?, ?, ?)", txns,
+                (ps, txn) -> {
+                    ps.setInt(1, txn.getUserId());
+                    ps.setBigDecimal(2, txn.getAmount());
+                    ps.setString(3, txn.getType());
+                    ps.setString(4, txn.getReason());
+                });
+        Metrics.recordQuery("WalletDAO.insertTransactions", start, txns.size());
+    }
+}
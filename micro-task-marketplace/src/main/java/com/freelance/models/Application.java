@@ -11,6 +11,9 @@ public class Application {
     private String status;
     private Timestamp timestamp;
 
+    // Helper for display
+    private String freelancerName;
+
     public Application() {}
 
     public Application(int taskId, int freelancerId, String proposalText, double bidAmount) {
@@ -41,4 +44,7 @@ public class Application {
 
     public Timestamp getTimestamp() { return timestamp; }
     public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
+
+    public String getFreelancerName() { return freelancerName; }
+    public void setFreelancerName(String freelancerName) { this.freelancerName = freelancerName; }
 }
@@ -0,0 +1,39 @@
+package com.freelance.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Point-in-time bid summary for one task, as shown on the task details page. */
+public class BidStats {
+    private final int taskId;
+    private final int count;
+    private final double average;
+    private final double min;
+    private final double max;
+    private final double median;
+    private final List<Application> shortlist;
+
+    public BidStats(int taskId, int count, double average, double min, double max, double median, List<Application> shortlist) {
+        this.taskId = taskId;
+        this.count = count;
+        this.average = average;
+        this.min = min;
+        this.max = max;
+        this.median = median;
+        this.shortlist = Collections.unmodifiableList(shortlist);
+    }
+
+    public static BidStats empty(int taskId) {
+        return new BidStats(taskId, 0, 0, 0, 0, 0, Collections.<Application>emptyList());
+    }
+
+    public int getTaskId() { return taskId; }
+    public int getCount() { return count; }
+    public double getAverage() { return average; }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+    /** Exact up to five bids, a P² estimate after that. */
+    public double getMedian() { return median; }
+    /** Lowest bids first. */
+    public List<Application> getShortlist() { return shortlist; }
+}
@@ -0,0 +1,51 @@
+package com.freelance.models;
+
+import java.sql.Timestamp;
+
+public class Review {
+    private int reviewId;
+    private int taskId;
+    private int reviewerId;
+    private int reviewedId;
+    private int rating;
+    private String comment;
+    private Timestamp timestamp;
+
+    // Helper for display
+    private String reviewerName;
+
+    public Review() {}
+
+    public Review(int taskId, int reviewerId, int reviewedId, int rating, String comment) {
+        this.taskId = taskId;
+        this.reviewerId = reviewerId;
+        this.reviewedId = reviewedId;
+        this.rating = rating;
+        this.comment = comment;
+    }
+
+    // Getters and Setters
+    public int getReviewId() { return reviewId; }
+    public void setReviewId(int reviewId) { this.reviewId = reviewId; }
+
+    public int getTaskId() { return taskId; }
+    public void setTaskId(int taskId) { this.taskId = taskId; }
+
+    public int getReviewerId() { return reviewerId; }
+    public void setReviewerId(int reviewerId) { this.reviewerId = reviewerId; }
+
+    public int getReviewedId() { return reviewedId; }
+    public void setReviewedId(int reviewedId) { this.reviewedId = reviewedId; }
+
+    public int getRating() { return rating; }
+    public void setRating(int rating) { this.rating = rating; }
+
+    public String getComment() { return comment; }
+    public void setComment(String comment) { this.comment = comment; }
+
+    public Timestamp getTimestamp() { return timestamp; }
+    public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
+
+    public String getReviewerName() { return reviewerName; }
+    public void setReviewerName(String reviewerName) { this.reviewerName = reviewerName; }
+}
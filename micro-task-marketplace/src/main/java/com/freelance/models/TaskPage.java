@@ -0,0 +1,31 @@
+package com.freelance.models;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public class TaskPage {
+    private final List<Task> tasks;
+    private final String nextCursor; // null when this is the last page
+
+    public TaskPage(List<Task> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Task> getTasks() { return tasks; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+
+    // Cursor is "<created_at millis>_<task_id>" of the last row on the page.
+    public static String encodeCursor(Task last) {
+        return last.getCreatedAt().getTime() + "_" + last.getTaskId();
+    }
+
+    public static Timestamp cursorCreatedAt(String cursor) {
+        return new Timestamp(Long.parseLong(cursor.substring(0, cursor.indexOf('_'))));
+    }
+
+    public static int cursorTaskId(String cursor) {
+        return Integer.parseInt(cursor.substring(cursor.indexOf('_') + 1));
+    }
+}
@@ -0,0 +1,42 @@
+package com.freelance.models;
+
+import java.math.BigDecimal;
+
+/**
+ * A movement of money between two wallets. A fromUserId of 0 means money entering the platform
+ * (a plain credit); a toUserId of 0 means money leaving it (a plain debit).
+ */
+public class Transfer {
+    public static final int EXTERNAL = 0;
+
+    private final int fromUserId;
+    private final int toUserId;
+    private final BigDecimal amount;
+    private final String reason;
+
+    public Transfer(int fromUserId, int toUserId, BigDecimal amount, String reason) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive: " + amount);
+        }
+        if (fromUserId == toUserId) {
+            throw new IllegalArgumentException("Transfer to the same wallet: " + fromUserId);
+        }
+        this.fromUserId = fromUserId;
+        this.toUserId = toUserId;
+        this.amount = amount;
+        this.reason = reason;
+    }
+
+    public static Transfer credit(int userId, BigDecimal amount, String reason) {
+        return new Transfer(EXTERNAL, userId, amount, reason);
+    }
+
+    public static Transfer debit(int userId, BigDecimal amount, String reason) {
+        return new Transfer(userId, EXTERNAL, amount, reason);
+    }
+
+    public int getFromUserId() { return fromUserId; }
+    public int getToUserId() { return toUserId; }
+    public BigDecimal getAmount() { return amount; }
+    public String getReason() { return reason; }
+}
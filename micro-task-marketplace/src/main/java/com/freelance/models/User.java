@@ -12,6 +12,7 @@ public class User {
     private String skills;
     private String profilePic;
     private double rating;
+    private int ratingCount;
     private Timestamp createdAt;
 
     public User() {}
@@ -51,6 +52,9 @@ public class User {
     public double getRating() { return rating; }
     public void setRating(double rating) { this.rating = rating; }
 
+    public int getRatingCount() { return ratingCount; }
+    public void setRatingCount(int ratingCount) { this.ratingCount = ratingCount; }
+
     public Timestamp getCreatedAt() { return createdAt; }
     public void setCreatedAt(Timestamp createdAt) { this.createdAt = createdAt; }
 }
@@ -0,0 +1,23 @@
+package com.freelance.models;
+
+import java.io.Serializable;
+
+/**
+ * What the HTTP session remembers about the logged-in user: just enough to authorize a request.
+ * Everything else (name, bio, skills, rating) is resolved through UserDAO's shared profile cache.
+ */
+public final class UserPrincipal implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+    private final String role;
+
+    public UserPrincipal(int id, String role) {
+        this.id = id;
+        // Roles are a small fixed set, so interning keeps one copy per role across all sessions
+        this.role = role == null ? null : role.intern();
+    }
+
+    public int getId() { return id; }
+    public String getRole() { return role; }
+}
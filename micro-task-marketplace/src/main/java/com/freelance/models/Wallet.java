@@ -0,0 +1,36 @@
+package com.freelance.models;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+public class Wallet {
+    private int walletId;
+    private int userId;
+    private BigDecimal balance;
+    private long version;
+    private Timestamp updatedAt;
+
+    public Wallet() {}
+
+    public Wallet(int userId, BigDecimal balance, long version) {
+        this.userId = userId;
+        this.balance = balance;
+        this.version = version;
+    }
+
+    // Getters and Setters
+    public int getWalletId() { return walletId; }
+    public void setWalletId(int walletId) { this.walletId = walletId; }
+
+    public int getUserId() { return userId; }
+    public void setUserId(int userId) { this.userId = userId; }
+
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public Timestamp getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Timestamp updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,42 @@
+package com.freelance.models;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/** One row of the transactions ledger: a CREDIT or DEBIT against a user's wallet. */
+public class WalletTransaction {
+    private int txnId;
+    private int userId;
+    private BigDecimal amount;
+    private String type;
+    private String reason;
+    private Timestamp timestamp;
+
+    public WalletTransaction() {}
+
+    public WalletTransaction(int userId, BigDecimal amount, String type, String reason) {
+        this.userId = userId;
+        this.amount = amount;
+        this.type = type;
+        this.reason = reason;
+    }
+
+    // Getters and Setters
+    public int getTxnId() { return txnId; }
+    public void setTxnId(int txnId) { this.txnId = txnId; }
+
+    public int getUserId() { return userId; }
+    public void setUserId(int userId) { this.userId = userId; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+
+    public Timestamp getTimestamp() { return timestamp; }
+    public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
+}
@@ -0,0 +1,192 @@
+package com.freelance.search;
+
+import com.freelance.dao.TaskDAO;
+import com.freelance.models.Task;
+import com.freelance.models.User;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index from normalized skill token ("java", "sql", "html") to the
+ * sorted ids of OPEN tasks requiring it. Lets "tasks matching my skills" be answered by
+ * merging a few posting lists instead of a LIKE scan over tasks.skills_required.
+ */
+public class SkillIndex {
+    private static final SkillIndex INSTANCE = new SkillIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, IntList> postings = new HashMap<>();
+    private Map<Integer, String[]> taskSkills = new HashMap<>();
+
+    public static SkillIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /** "Java,  SQL , html,java" -> [java, sql, html] */
+    public static String[] normalize(String skills) {
+        if (skills == null || skills.isEmpty()) {
+            return new String[0];
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String raw : skills.split(",")) {
+            String token = raw.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    /** Streams every OPEN task from the database into a fresh index, then swaps it in. */
+    public void rebuild(TaskDAO taskDAO) {
+        Map<String, IntList> newPostings = new HashMap<>();
+        Map<Integer, String[]> newTaskSkills = new HashMap<>();
+        taskDAO.forEachTask("OPEN", task -> addTo(newPostings, newTaskSkills, task.getTaskId(), task.getSkillsRequired()));
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            taskSkills = newTaskSkills;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Keeps the index in step with a created or updated task: only OPEN tasks are indexed. */
+    public void onTaskChanged(Task task) {
+        if ("OPEN".equals(task.getStatus())) {
+            add(task.getTaskId(), task.getSkillsRequired());
+        } else {
+            remove(task.getTaskId());
+        }
+    }
+
+    public void add(int taskId, String skills) {
+        lock.writeLock().lock();
+        try {
+            removeFrom(postings, taskSkills, taskId);
+            addTo(postings, taskSkills, taskId, skills);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int taskId) {
+        lock.writeLock().lock();
+        try {
+            removeFrom(postings, taskSkills, taskId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Open task ids ranked by how many of the user's skills they require (most overlap first,
+     * newest task first on ties).
+     */
+    public List<Integer> rankTaskIds(User user, int limit) {
+        return rankTaskIds(normalize(user.getSkills()), limit);
+    }
+
+    public List<Integer> rankTaskIds(String[] skills, int limit) {
+        List<long[]> scored = matchCounts(skills);
+        scored.sort((a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(b[0], a[0]));
+
+        List<Integer> result = new ArrayList<>(Math.min(limit, scored.size()));
+        for (int i = 0; i < scored.size() && i < limit; i++) {
+            result.add((int) scored.get(i)[0]);
+        }
+        return result;
+    }
+
+    /** Every open task requiring at least one of the skills, as {taskId, number of skills matched}, in id order. */
+    public List<long[]> matchCounts(String[] skills) {
+        int[] ids;
+        lock.readLock().lock();
+        try {
+            int total = 0;
+            List<IntList> lists = new ArrayList<>(skills.length);
+            for (String skill : skills) {
+                IntList list = postings.get(skill);
+                if (list != null) {
+                    lists.add(list);
+                    total += list.size();
+                }
+            }
+            ids = new int[total];
+            int n = 0;
+            for (IntList list : lists) {
+                for (int i = 0; i < list.size(); i++) {
+                    ids[n++] = list.get(i);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // After sorting, a task appears once per matching skill: run length == overlap
+        Arrays.sort(ids);
+        List<long[]> counts = new ArrayList<>();
+        for (int i = 0; i < ids.length; ) {
+            int j = i;
+            while (j < ids.length && ids[j] == ids[i]) {
+                j++;
+            }
+            counts.add(new long[]{ids[i], j - i});
+            i = j;
+        }
+        return counts;
+    }
+
+    public int getIndexedTaskCount() {
+        lock.readLock().lock();
+        try {
+            return taskSkills.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getSkillCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void addTo(Map<String, IntList> postings, Map<Integer, String[]> taskSkills, int taskId, String skills) {
+        String[] tokens = normalize(skills);
+        if (tokens.length == 0) {
+            return;
+        }
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, k -> new IntList()).add(taskId);
+        }
+        taskSkills.put(taskId, tokens);
+    }
+
+    private static void removeFrom(Map<String, IntList> postings, Map<Integer, String[]> taskSkills, int taskId) {
+        String[] tokens = taskSkills.remove(taskId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            IntList list = postings.get(token);
+            if (list != null) {
+                list.remove(taskId);
+                if (list.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+}
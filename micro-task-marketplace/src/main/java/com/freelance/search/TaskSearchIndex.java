@@ -0,0 +1,240 @@
+package com.freelance.search;
+
+import com.freelance.dao.TaskDAO;
+import com.freelance.models.Task;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Incrementally maintained full-text index over task titles and descriptions with BM25 ranking.
+ * Title terms count TITLE_WEIGHT times so a match in the title outranks one buried in the description.
+ */
+public class TaskSearchIndex {
+    private static final TaskSearchIndex INSTANCE = new TaskSearchIndex();
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "i", "in", "is", "it",
+            "me", "my", "need", "of", "on", "or", "our", "the", "this", "to", "we", "with", "you"));
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Postings> postings = new HashMap<>();
+    private Map<Integer, Doc> docs = new HashMap<>();
+    private long totalLength;
+
+    public static TaskSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && (Character.isLetterOrDigit(lower.charAt(i)) || lower.charAt(i) == '+' || lower.charAt(i) == '#');
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = lower.substring(start, i);
+                if (!STOP_WORDS.contains(token) && (token.length() > 1 || Character.isLetter(token.charAt(0)))) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Streams every task row from the database into a fresh index and swaps it in,
+     * so memory stays bounded by the index itself rather than a List of all tasks.
+     */
+    public void rebuild(TaskDAO taskDAO) {
+        TaskSearchIndex fresh = new TaskSearchIndex();
+        taskDAO.forEachTask(null, fresh::addUnlocked);
+        lock.writeLock().lock();
+        try {
+            postings = fresh.postings;
+            docs = fresh.docs;
+            totalLength = fresh.totalLength;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onTaskChanged(Task task) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(task.getTaskId());
+            addUnlocked(task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int taskId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(taskId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Task ids of the k best BM25 matches for the query, best first. */
+    public List<Integer> search(String query, int k) {
+        Set<String> terms = new HashSet<>(tokenize(query));
+        if (terms.isEmpty() || k <= 0) {
+            return Collections.emptyList();
+        }
+        Map<Integer, double[]> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int n = docs.size();
+            double avgLength = n == 0 ? 0 : (double) totalLength / n;
+            for (String term : terms) {
+                Postings p = postings.get(term);
+                if (p == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (n - p.size + 0.5) / (p.size + 0.5));
+                for (int i = 0; i < p.size; i++) {
+                    int docId = p.docIds[i];
+                    int tf = p.freqs[i];
+                    int length = docs.get(docId).length;
+                    double norm = K1 * (1 - B + B * length / avgLength);
+                    double score = idf * tf * (K1 + 1) / (tf + norm);
+                    scores.computeIfAbsent(docId, id -> new double[1])[0] += score;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Bounded min-heap: the root is the weakest of the current top k
+        PriorityQueue<Map.Entry<Integer, double[]>> heap = new PriorityQueue<>(k + 1,
+                (a, b) -> a.getValue()[0] != b.getValue()[0]
+                        ? Double.compare(a.getValue()[0], b.getValue()[0])
+                        : Integer.compare(a.getKey(), b.getKey()));
+        for (Map.Entry<Integer, double[]> e : scores.entrySet()) {
+            heap.offer(e);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        Integer[] ranked = new Integer[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll().getKey();
+        }
+        return Arrays.asList(ranked);
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addUnlocked(Task task) {
+        Map<String, Integer> tf = new HashMap<>();
+        for (String token : tokenize(task.getTitle())) {
+            tf.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(task.getDescription())) {
+            tf.merge(token, 1, Integer::sum);
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> e : tf.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), t -> new Postings()).put(task.getTaskId(), e.getValue());
+            length += e.getValue();
+        }
+        docs.put(task.getTaskId(), new Doc(length, tf.keySet().toArray(new String[0])));
+        totalLength += length;
+    }
+
+    private void removeUnlocked(int taskId) {
+        Doc doc = docs.remove(taskId);
+        if (doc == null) {
+            return;
+        }
+        totalLength -= doc.length;
+        for (String term : doc.terms) {
+            Postings p = postings.get(term);
+            if (p != null && p.remove(taskId) && p.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static final class Doc {
+        final int length;
+        final String[] terms;
+
+        Doc(int length, String[] terms) {
+            this.length = length;
+            this.terms = terms;
+        }
+    }
+
+    // Parallel primitive arrays of (docId, term frequency), sorted by docId
+    private static final class Postings {
+        int[] docIds = new int[2];
+        int[] freqs = new int[2];
+        int size;
+
+        void put(int docId, int freq) {
+            int pos = size > 0 && docIds[size - 1] < docId ? -size - 1 : Arrays.binarySearch(docIds, 0, size, docId);
+            if (pos >= 0) {
+                freqs[pos] = freq;
+                return;
+            }
+            int at = -pos - 1;
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            System.arraycopy(docIds, at, docIds, at + 1, size - at);
+            System.arraycopy(freqs, at, freqs, at + 1, size - at);
+            docIds[at] = docId;
+            freqs[at] = freq;
+            size++;
+        }
+
+        boolean remove(int docId) {
+            int pos = Arrays.binarySearch(docIds, 0, size, docId);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(docIds, pos + 1, docIds, pos, size - pos - 1);
+            System.arraycopy(freqs, pos + 1, freqs, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+}
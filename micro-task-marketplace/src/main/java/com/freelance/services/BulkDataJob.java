@@ -0,0 +1,99 @@
+package com.freelance.services;
+
+import com.freelance.dao.BulkDAO;
+import com.freelance.utils.DBConnection;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+
+/**
+ * Command-line bulk export/import of tasks, applications and messages (see BulkDAO). Usage:
+ *   java -Ddb.url=... -cp WEB-INF/classes:WEB-INF/lib/* com.freelance.services.BulkDataJob export <table> [file] [--format=csv] [--after=<key>]
+ *   java -Ddb.url=... -cp WEB-INF/classes:WEB-INF/lib/* com.freelance.services.BulkDataJob import <table> [file] [--format=csv] [--offset=<n>]
+ * The file defaults to stdout/stdin ("-"); the format defaults to CSV for *.csv files and NDJSON
+ * otherwise. Progress goes to stderr. An import that stops early prints the --offset to rerun with.
+ * This JVM's caches are not the running app's: rows imported here reach its in-memory indexes on
+ * its next restart, while POST /admin/import updates them as it goes.
+ */
+public class BulkDataJob {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !("export".equals(args[0]) || "import".equals(args[0]))) {
+            usage("Expected export|import <table>");
+        }
+        BulkDAO.Table table = BulkDAO.Table.parse(args[1]);
+        if (table == null) {
+            usage("Unknown table " + args[1] + "; expected tasks, applications or messages");
+        }
+        String file = "-";
+        BulkDAO.Format format = null;
+        long position = 0;
+        for (int i = 2; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--format=")) {
+                format = BulkDAO.Format.parse(arg.substring("--format=".length()));
+                if (format == null) {
+                    usage("Unknown format in " + arg + "; expected ndjson or csv");
+                }
+            } else if (arg.startsWith("export".equals(args[0]) ? "--after=" : "--offset=")) {
+                position = Long.parseLong(arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--")) {
+                usage("Unknown option " + arg);
+            } else {
+                file = arg;
+            }
+        }
+        if (format == null) {
+            format = file.endsWith(".csv") ? BulkDAO.Format.CSV : BulkDAO.Format.NDJSON;
+        }
+
+        BulkDAO bulkDAO = new BulkDAO();
+        long start = System.currentTimeMillis();
+        int status = 0;
+        try {
+            if ("export".equals(args[0])) {
+                try (Writer out = "-".equals(file)
+                        ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 65536)
+                        : Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+                    long rows = bulkDAO.export(table, format, position, out);
+                    System.err.println("Exported " + rows + " " + table.getName() + " in " + (System.currentTimeMillis() - start) + " ms");
+                }
+            } else {
+                try (Reader in = "-".equals(file)
+                        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 65536)
+                        : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+                    BulkDAO.ImportResult result = bulkDAO.importRows(table, format, in, position,
+                            (done, imported) -> System.err.println("  " + done + " records done, " + imported + " imported"));
+                    System.err.println("Imported " + result.getImported() + " " + table.getName() + " in "
+                            + (System.currentTimeMillis() - start) + " ms");
+                    if (result.getError() != null) {
+                        System.err.println(result.getError());
+                        System.err.println("Resume with --offset=" + result.getOffset());
+                        status = 1;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            DBConnection.shutdown();
+        }
+        System.exit(status);
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: BulkDataJob export <table> [file] [--format=ndjson|csv] [--after=<key>]");
+        System.err.println("       BulkDataJob import <table> [file] [--format=ndjson|csv] [--offset=<records>]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,165 @@
+package com.freelance.services;
+
+import com.freelance.dao.TaskDAO;
+import com.freelance.models.Task;
+import com.freelance.utils.TimingWheel;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closes OPEN tasks once their deadline has passed (at the end of the deadline day, in
+ * deadlines.zone, default the JVM's zone). Open tasks are streamed into a TimingWheel at startup
+ * and every new task is added as it is created, so finding what is due costs nothing per task;
+ * nothing scans the tasks table. Due tasks are closed deadlines.batchSize (500) at a time with
+ * TaskDAO.closeOpenTasks, which also updates the caches and indexes.
+ *
+ * A task that is assigned or closed before its deadline stays in the wheel and is skipped when it
+ * comes due; closeOpenTasks only touches rows that are still OPEN, so other nodes are safe too.
+ */
+public class DeadlineScheduler {
+    private static final DeadlineScheduler INSTANCE = new DeadlineScheduler(
+            Long.getLong("deadlines.tickMs", 1_000L),
+            Integer.getInteger("deadlines.batchSize", 500),
+            ZoneId.of(System.getProperty("deadlines.zone", ZoneId.systemDefault().getId())));
+
+    private final long tickMs;
+    private final int batchSize;
+    private final ZoneId zone;
+    private final TaskDAO taskDAO = new TaskDAO();
+
+    // Guarded by this
+    private final TimingWheel<Integer> wheel;
+    // When each scheduled task expires; a wheel entry that no longer matches is stale
+    private final Map<Integer, Long> expiries = new ConcurrentHashMap<>();
+    // Due but not closed yet (found by the wheel, or already overdue when scheduled)
+    private List<Integer> due = new ArrayList<>();
+
+    private final AtomicLong closedCount = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    public DeadlineScheduler(long tickMs, int batchSize, ZoneId zone) {
+        this.tickMs = tickMs;
+        this.batchSize = batchSize;
+        this.zone = zone;
+        this.wheel = new TimingWheel<>(tickMs, System.currentTimeMillis());
+    }
+
+    public static DeadlineScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /** Streams every OPEN task into the wheel; tasks already overdue are closed on the first tick. */
+    public void load(TaskDAO source) {
+        source.forEachTask("OPEN", this::onTaskChanged);
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "task-deadlines");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, 0, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /** Schedules an OPEN task with a deadline, and forgets any other. */
+    public void onTaskChanged(Task task) {
+        int taskId = task.getTaskId();
+        long expiresAt = "OPEN".equals(task.getStatus()) ? expiryOf(task.getDeadline()) : -1;
+        if (expiresAt < 0) {
+            expiries.remove(taskId);
+            return;
+        }
+        Long previous = expiries.put(taskId, expiresAt);
+        if (previous != null && previous == expiresAt) {
+            return;
+        }
+        synchronized (this) {
+            if (!wheel.schedule(taskId, expiresAt)) {
+                due.add(taskId);
+            }
+        }
+    }
+
+    /** Advances the wheel to now and closes whatever came due. Runs on the scheduler every tickMs. */
+    public void tick() {
+        long now = System.currentTimeMillis();
+        List<Integer> batch;
+        synchronized (this) {
+            wheel.advance(now, due::add);
+            if (due.isEmpty()) {
+                return;
+            }
+            batch = due;
+            due = new ArrayList<>();
+        }
+        List<Integer> closing = new ArrayList<>(batch.size());
+        for (int taskId : batch) {
+            Long expiresAt = expiries.get(taskId);
+            if (expiresAt != null && expiresAt <= now) {
+                closing.add(taskId);
+            }
+        }
+        for (int from = 0; from < closing.size(); from += batchSize) {
+            List<Integer> chunk = new ArrayList<>(closing.subList(from, Math.min(closing.size(), from + batchSize)));
+            List<Task> closed = taskDAO.closeOpenTasks(chunk);
+            if (closed == null) {
+                // Database trouble: try the rest again on the next tick
+                synchronized (this) {
+                    due.addAll(closing.subList(from, closing.size()));
+                }
+                return;
+            }
+            closedCount.addAndGet(closed.size());
+            for (int taskId : chunk) {
+                expiries.remove(taskId);
+            }
+        }
+    }
+
+    public int getScheduledCount() {
+        return expiries.size();
+    }
+
+    public long getClosedCount() {
+        return closedCount.get();
+    }
+
+    // Start of the day after the deadline, or -1 for none / unparseable
+    private long expiryOf(String deadline) {
+        if (deadline == null || deadline.isEmpty()) {
+            return -1;
+        }
+        try {
+            return LocalDate.parse(deadline.length() > 10 ? deadline.substring(0, 10) : deadline)
+                    .plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.freelance.services;
+
+import com.freelance.dao.WalletDAO;
+import com.freelance.models.Transfer;
+import com.freelance.models.Wallet;
+import com.freelance.models.WalletTransaction;
+import com.freelance.utils.DBConnection;
+import com.freelance.utils.ReadConsistency;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies credits, debits and transfers to wallets and the transactions ledger.
+ *
+ * Within this JVM, work on the same wallet is serialized by a fixed array of striped locks (taken in
+ * stripe order, so transfers can't deadlock), while unrelated wallets proceed in parallel. Every call
+ * is a single database transaction: one batched UPDATE for the balances and one batched INSERT for the
+ * ledger rows. Balance updates are guarded by the wallet's version column, so a concurrent writer
+ * outside this JVM (another node, a manual fix) makes the batch roll back and retry from fresh
+ * balances instead of overwriting them. A batch that would take any wallet below zero is rejected whole.
+ */
+public class LedgerService {
+    private static final LedgerService INSTANCE = new LedgerService(new WalletDAO(),
+            Integer.getInteger("ledger.lockStripes", 64), Integer.getInteger("ledger.maxRetries", 5));
+
+    private final WalletDAO walletDAO;
+    private final ReentrantLock[] stripes;
+    private final int maxRetries;
+
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public LedgerService(WalletDAO walletDAO, int stripeCount, int maxRetries) {
+        this.walletDAO = walletDAO;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    public static LedgerService getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean credit(int userId, BigDecimal amount, String reason) {
+        return apply(Collections.singletonList(Transfer.credit(userId, amount, reason)));
+    }
+
+    public boolean debit(int userId, BigDecimal amount, String reason) {
+        return apply(Collections.singletonList(Transfer.debit(userId, amount, reason)));
+    }
+
+    public boolean transfer(int fromUserId, int toUserId, BigDecimal amount, String reason) {
+        return apply(Collections.singletonList(new Transfer(fromUserId, toUserId, amount, reason)));
+    }
+
+    /** Pays the freelancer for a completed task out of the client's wallet. */
+    public boolean payout(int taskId, int clientId, int freelancerId, BigDecimal amount) {
+        return transfer(clientId, freelancerId, amount, "Payout for task #" + taskId);
+    }
+
+    /**
+     * Applies all transfers in one database transaction, in order: either every one of them is
+     * recorded or none is. Returns false if a wallet would go negative or the database kept failing.
+     */
+    public boolean apply(List<Transfer> transfers) {
+        if (transfers.isEmpty()) {
+            return true;
+        }
+        TreeSet<Integer> userIds = new TreeSet<>();
+        for (Transfer t : transfers) {
+            if (t.getFromUserId() != Transfer.EXTERNAL) {
+                userIds.add(t.getFromUserId());
+            }
+            if (t.getToUserId() != Transfer.EXTERNAL) {
+                userIds.add(t.getToUserId());
+            }
+        }
+
+        TreeSet<Integer> stripeIds = new TreeSet<>();
+        for (int userId : userIds) {
+            stripeIds.add(stripeFor(userId));
+        }
+        List<ReentrantLock> held = new ArrayList<>(stripeIds.size());
+        try {
+            for (int stripe : stripeIds) {
+                stripes[stripe].lock();
+                held.add(stripes[stripe]);
+            }
+            for (int attempt = 0; attempt <= maxRetries; attempt++) {
+                Outcome outcome = tryApply(transfers, userIds);
+                if (outcome == Outcome.COMMITTED) {
+                    committed.increment();
+                    ReadConsistency.recordWrite();
+                    return true;
+                }
+                if (outcome == Outcome.INSUFFICIENT_FUNDS) {
+                    rejected.increment();
+                    return false;
+                }
+                conflicts.increment();
+            }
+            failed.increment();
+            return false;
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    public BigDecimal getBalance(int userId) {
+        Wallet wallet = walletDAO.getWallet(userId);
+        return wallet == null ? BigDecimal.ZERO : wallet.getBalance();
+    }
+
+    public long getCommittedCount() { return committed.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getConflictCount() { return conflicts.sum(); }
+    public long getFailedCount() { return failed.sum(); }
+
+    private enum Outcome { COMMITTED, INSUFFICIENT_FUNDS, RETRY }
+
+    private Outcome tryApply(List<Transfer> transfers, TreeSet<Integer> userIds) {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Sorted by user id so every writer touches wallet rows in the same order
+                Map<Integer, Wallet> wallets = new TreeMap<>(walletDAO.loadWallets(conn, userIds));
+                List<Integer> missing = new ArrayList<>();
+                for (int userId : userIds) {
+                    if (!wallets.containsKey(userId)) {
+                        missing.add(userId);
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    walletDAO.createWallets(conn, missing);
+                    for (int userId : missing) {
+                        wallets.put(userId, new Wallet(userId, BigDecimal.ZERO, 0));
+                    }
+                }
+
+                Map<Integer, BigDecimal> balances = new TreeMap<>();
+                for (Wallet wallet : wallets.values()) {
+                    balances.put(wallet.getUserId(), wallet.getBalance());
+                }
+                List<WalletTransaction> txns = new ArrayList<>(transfers.size() * 2);
+                for (Transfer t : transfers) {
+                    if (t.getFromUserId() != Transfer.EXTERNAL) {
+                        BigDecimal after = balances.get(t.getFromUserId()).subtract(t.getAmount());
+                        if (after.signum() < 0) {
+                            conn.rollback();
+                            return Outcome.INSUFFICIENT_FUNDS;
+                        }
+                        balances.put(t.getFromUserId(), after);
+                        txns.add(new WalletTransaction(t.getFromUserId(), t.getAmount(), "DEBIT", t.getReason()));
+                    }
+                    if (t.getToUserId() != Transfer.EXTERNAL) {
+                        balances.put(t.getToUserId(), balances.get(t.getToUserId()).add(t.getAmount()));
+                        txns.add(new WalletTransaction(t.getToUserId(), t.getAmount(), "CREDIT", t.getReason()));
+                    }
+                }
+
+                List<Wallet> updated = new ArrayList<>(wallets.size());
+                for (Wallet wallet : wallets.values()) {
+                    updated.add(new Wallet(wallet.getUserId(), balances.get(wallet.getUserId()), wallet.getVersion()));
+                }
+                if (!walletDAO.updateBalances(conn, updated)) {
+                    conn.rollback();
+                    return Outcome.RETRY;
+                }
+                walletDAO.insertTransactions(conn, txns);
+                conn.commit();
+                return Outcome.COMMITTED;
+            } catch (SQLException e) {
+                // Lost a race creating a wallet, or a deadlock / lock timeout: start over from fresh rows
+                conn.rollback();
+                System.err.println("Ledger batch rolled back, retrying: " + e.getMessage());
+                return Outcome.RETRY;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Outcome.RETRY;
+        }
+    }
+
+    private int stripeFor(int userId) {
+        // Spread consecutive ids so neighbouring users rarely share a stripe
+        return Math.floorMod(userId * 0x9E3779B9, stripes.length);
+    }
+}
@@ -0,0 +1,20 @@
+package com.freelance.services;
+
+import com.freelance.dao.ReviewDAO;
+import com.freelance.utils.DBConnection;
+
+/**
+ * Offline repair for users.rating: rebuilds every user's rating aggregate from the reviews table
+ * in chunks, safe to run while the app is serving reviews. Usage (chunk size defaults to 1000):
+ *   java -Ddb.url=... -cp WEB-INF/classes:WEB-INF/lib/* com.freelance.services.RatingRecomputeJob [chunkSize]
+ */
+public class RatingRecomputeJob {
+
+    public static void main(String[] args) {
+        int chunkSize = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long start = System.currentTimeMillis();
+        int users = new ReviewDAO().recomputeRatings(chunkSize);
+        System.out.println("Recomputed ratings for " + users + " users in " + (System.currentTimeMillis() - start) + " ms");
+        DBConnection.shutdown();
+    }
+}
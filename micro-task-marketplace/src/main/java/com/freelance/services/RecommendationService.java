@@ -0,0 +1,455 @@
+package com.freelance.services;
+
+import com.freelance.dao.TaskDAO;
+import com.freelance.models.Task;
+import com.freelance.models.User;
+import com.freelance.search.SkillIndex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precomputed "recommended for you" feeds: for each recently active freelancer, the top K open tasks
+ * ranked by how well their required skills match the freelancer's, by budget and by recency.
+ *
+ * A feed is computed in full when a freelancer logs in (or first asks for it) and again by a
+ * background job every recommend.refreshMs, which also drops freelancers idle for longer than
+ * recommend.activeWindowMs. In between, a new task is only scored against the freelancers who share
+ * one of its skills and merged into their feeds; a task that closes is removed the same way.
+ * At most recommend.maxUsers feeds are kept (least recently used go first), each as two K-sized
+ * arrays, so serving one is a copy of at most K ids.
+ */
+public class RecommendationService {
+    private static final RecommendationService INSTANCE = new RecommendationService(
+            Integer.getInteger("recommend.k", 50),
+            Integer.getInteger("recommend.maxUsers", 10_000),
+            Long.getLong("recommend.activeWindowMs", 86_400_000L),
+            Long.getLong("recommend.refreshMs", 600_000L));
+
+    // Share of the score from skill match, budget and recency; each part is between 0 and 1
+    private static final double SKILL_WEIGHT = 0.6;
+    private static final double BUDGET_WEIGHT = 0.2;
+    private static final double RECENCY_WEIGHT = 0.2;
+    // Budgets at or above this count as fully attractive; below it the scale is logarithmic
+    private static final double BUDGET_CAP = Double.parseDouble(System.getProperty("recommend.budgetCap", "1000"));
+    // A task's recency score halves every this many hours
+    private static final double HALF_LIFE_MS = Long.getLong("recommend.halfLifeHours", 72L) * 3_600_000.0;
+
+    private final int k;
+    private final int maxUsers;
+    private final long activeWindowMs;
+    private final long refreshMs;
+
+    // What scoring needs from each OPEN task, kept in step by onTaskChanged
+    private volatile Map<Integer, TaskFeatures> openTasks = new ConcurrentHashMap<>();
+
+    // Guarded by this: feeds, least recently used by their freelancer first
+    private final LinkedHashMap<Integer, Feed> feeds;
+    // Which feeds to touch when a task with a given skill appears or closes
+    private final Map<String, Set<Integer>> freelancersBySkill = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public RecommendationService(int k, int maxUsers, long activeWindowMs, long refreshMs) {
+        this.k = k;
+        this.maxUsers = maxUsers;
+        this.activeWindowMs = activeWindowMs;
+        this.refreshMs = refreshMs;
+        this.feeds = new LinkedHashMap<Integer, Feed>() {
+            protected boolean removeEldestEntry(Map.Entry<Integer, Feed> eldest) {
+                if (size() > RecommendationService.this.maxUsers) {
+                    unindex(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static RecommendationService getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class TaskFeatures {
+        final String[] skills;
+        final double budget;
+        final long createdAt;
+
+        TaskFeatures(Task task) {
+            this.skills = SkillIndex.normalize(task.getSkillsRequired());
+            this.budget = task.getBudget();
+            this.createdAt = task.getCreatedAt() == null ? System.currentTimeMillis() : task.getCreatedAt().getTime();
+        }
+    }
+
+    private static final class Scored {
+        final int taskId;
+        final float score;
+
+        Scored(int taskId, float score) {
+            this.taskId = taskId;
+            this.score = score;
+        }
+    }
+
+    /** One freelancer's ranked feed: task ids and scores, best first, at most k of each. */
+    private static final class Feed {
+        final int userId;
+        final String[] skills;
+        volatile long lastActive = System.currentTimeMillis();
+        private int[] ids = new int[0];
+        private float[] scores = new float[0];
+        // Offers and removals (NaN) from onTaskChanged while a full computation runs, by task; replayed
+        // over its result so an update the computation didn't see isn't overwritten
+        private int computing;
+        private Map<Integer, Float> pending;
+
+        Feed(int userId, String[] skills) {
+            this.userId = userId;
+            this.skills = skills;
+        }
+
+        synchronized void beginCompute() {
+            if (computing++ == 0) {
+                pending = new LinkedHashMap<>();
+            }
+        }
+
+        // Installs a computed ranking (null if the computation failed) merged with the pending updates
+        synchronized void finishCompute(int[] ids, float[] scores, int k) {
+            if (ids != null) {
+                this.ids = ids;
+                this.scores = scores;
+                for (Map.Entry<Integer, Float> update : pending.entrySet()) {
+                    if (update.getValue().isNaN()) {
+                        removeLocked(update.getKey());
+                    } else {
+                        offerLocked(update.getKey(), update.getValue(), k);
+                    }
+                }
+            }
+            if (--computing == 0) {
+                pending = null;
+            }
+        }
+
+        synchronized void offer(int taskId, float score, int k) {
+            if (pending != null) {
+                pending.put(taskId, score);
+            }
+            offerLocked(taskId, score, k);
+        }
+
+        // Inserts or re-scores a task, keeping the arrays sorted and at most k long
+        private void offerLocked(int taskId, float score, int k) {
+            removeLocked(taskId);
+            int n = ids.length;
+            if (n == k && score <= scores[n - 1]) {
+                return;
+            }
+            int pos = n;
+            while (pos > 0 && scores[pos - 1] < score) {
+                pos--;
+            }
+            int size = Math.min(n + 1, k);
+            int[] newIds = new int[size];
+            float[] newScores = new float[size];
+            System.arraycopy(ids, 0, newIds, 0, pos);
+            System.arraycopy(scores, 0, newScores, 0, pos);
+            newIds[pos] = taskId;
+            newScores[pos] = score;
+            System.arraycopy(ids, pos, newIds, pos + 1, size - pos - 1);
+            System.arraycopy(scores, pos, newScores, pos + 1, size - pos - 1);
+            ids = newIds;
+            scores = newScores;
+        }
+
+        synchronized void remove(int taskId) {
+            if (pending != null) {
+                pending.put(taskId, Float.NaN);
+            }
+            removeLocked(taskId);
+        }
+
+        private void removeLocked(int taskId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == taskId) {
+                    int[] newIds = new int[ids.length - 1];
+                    float[] newScores = new float[ids.length - 1];
+                    System.arraycopy(ids, 0, newIds, 0, i);
+                    System.arraycopy(scores, 0, newScores, 0, i);
+                    System.arraycopy(ids, i + 1, newIds, i, ids.length - i - 1);
+                    System.arraycopy(scores, i + 1, newScores, i, ids.length - i - 1);
+                    ids = newIds;
+                    scores = newScores;
+                    return;
+                }
+            }
+        }
+
+        synchronized List<Integer> top(int limit) {
+            int n = Math.min(limit, ids.length);
+            List<Integer> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                result.add(ids[i]);
+            }
+            return result;
+        }
+    }
+
+    /** Streams every OPEN task's scoring features from the database, then swaps them in. */
+    public void rebuild(TaskDAO taskDAO) {
+        Map<Integer, TaskFeatures> fresh = new ConcurrentHashMap<>();
+        taskDAO.forEachTask("OPEN", task -> fresh.put(task.getTaskId(), new TaskFeatures(task)));
+        openTasks = fresh;
+    }
+
+    /** Starts the periodic full refresh of active feeds. */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "recommendation-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshAll, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /** A freelancer logged in: compute their feed in the background so it is ready when they ask. */
+    public void onLogin(User user) {
+        if (!isFreelancer(user)) {
+            return;
+        }
+        ScheduledExecutorService s;
+        synchronized (this) {
+            s = scheduler;
+        }
+        if (s == null) {
+            feedFor(user);
+        } else {
+            s.execute(() -> feedFor(user));
+        }
+    }
+
+    // Only freelancers get feeds, so clients never take one of the recommend.maxUsers slots
+    private static boolean isFreelancer(User user) {
+        return "FREELANCER".equals(user.getRole()) || "BOTH".equals(user.getRole());
+    }
+
+    /** The user's skills changed: recompute their feed if they have one. */
+    public void onProfileChanged(User user) {
+        synchronized (this) {
+            if (!feeds.containsKey(user.getId())) {
+                return;
+            }
+        }
+        install(user.getId(), SkillIndex.normalize(user.getSkills()));
+    }
+
+    /** Up to limit recommended open task ids for the user, best first; none for clients. */
+    public List<Integer> recommend(User user, int limit) {
+        if (!isFreelancer(user)) {
+            return new ArrayList<>();
+        }
+        Feed feed = feedFor(user);
+        feed.lastActive = System.currentTimeMillis();
+        synchronized (this) {
+            // Move to the most recently used end; background updates don't count as use
+            if (feeds.remove(user.getId(), feed)) {
+                feeds.put(user.getId(), feed);
+            }
+        }
+        return feed.top(limit);
+    }
+
+    /** Keeps feeds in step with a created or updated task, touching only freelancers who share a skill with it. */
+    public void onTaskChanged(Task task) {
+        int taskId = task.getTaskId();
+        boolean open = "OPEN".equals(task.getStatus());
+        TaskFeatures features;
+        if (open) {
+            features = new TaskFeatures(task);
+            openTasks.put(taskId, features);
+        } else {
+            features = openTasks.remove(taskId);
+            if (features == null) {
+                return;
+            }
+        }
+        long now = System.currentTimeMillis();
+        for (Feed feed : feedsSharingSkills(features.skills)) {
+            if (!open) {
+                feed.remove(taskId);
+                continue;
+            }
+            int overlap = overlap(feed.skills, features.skills);
+            if (overlap > 0) {
+                feed.offer(taskId, score(features, overlap, now), k);
+            } else {
+                feed.remove(taskId);
+            }
+        }
+    }
+
+    /** Recomputes every active feed and drops the idle ones. Runs on the scheduler. */
+    public void refreshAll() {
+        long cutoff = System.currentTimeMillis() - activeWindowMs;
+        List<Feed> active = new ArrayList<>();
+        synchronized (this) {
+            for (Feed feed : new ArrayList<>(feeds.values())) {
+                if (feed.lastActive < cutoff) {
+                    feeds.remove(feed.userId);
+                    unindex(feed);
+                } else {
+                    active.add(feed);
+                }
+            }
+        }
+        for (Feed feed : active) {
+            try {
+                compute(feed);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public synchronized int getFeedCount() {
+        return feeds.size();
+    }
+
+    public int getOpenTaskCount() {
+        return openTasks.size();
+    }
+
+    private Feed feedFor(User user) {
+        String[] skills = SkillIndex.normalize(user.getSkills());
+        synchronized (this) {
+            Feed feed = feeds.get(user.getId());
+            if (feed != null && Arrays.equals(feed.skills, skills)) {
+                return feed;
+            }
+        }
+        return install(user.getId(), skills);
+    }
+
+    // Registered before computing, so a task created meanwhile is merged in rather than missed
+    private Feed install(int userId, String[] skills) {
+        Feed feed = new Feed(userId, skills);
+        synchronized (this) {
+            Feed previous = feeds.put(userId, feed);
+            if (previous != null) {
+                unindex(previous);
+            }
+            for (String skill : skills) {
+                freelancersBySkill.computeIfAbsent(skill, s -> ConcurrentHashMap.newKeySet()).add(userId);
+            }
+        }
+        compute(feed);
+        return feed;
+    }
+
+    // Full computation: score every open task sharing a skill, keep the best k. Updates that
+    // onTaskChanged makes to the feed meanwhile are merged into the result, not overwritten
+    private void compute(Feed feed) {
+        feed.beginCompute();
+        int[] ids = null;
+        float[] scores = null;
+        try {
+            long now = System.currentTimeMillis();
+            Map<Integer, TaskFeatures> tasks = openTasks;
+            // Min-heap of the best k so far
+            PriorityQueue<Scored> best = new PriorityQueue<>(k + 1, (a, b) -> Float.compare(a.score, b.score));
+            for (long[] match : SkillIndex.getInstance().matchCounts(feed.skills)) {
+                TaskFeatures features = tasks.get((int) match[0]);
+                if (features == null) {
+                    continue;
+                }
+                best.offer(new Scored((int) match[0], score(features, (int) match[1], now)));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+            int n = best.size();
+            ids = new int[n];
+            scores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                Scored entry = best.poll();
+                ids[i] = entry.taskId;
+                scores[i] = entry.score;
+            }
+        } finally {
+            feed.finishCompute(ids, scores, k);
+        }
+    }
+
+    private static float score(TaskFeatures task, int overlap, long now) {
+        double skill = task.skills.length == 0 ? 0 : (double) overlap / task.skills.length;
+        double budget = Math.min(1.0, Math.log1p(Math.max(0, task.budget)) / Math.log1p(BUDGET_CAP));
+        double recency = Math.pow(0.5, Math.max(0, now - task.createdAt) / HALF_LIFE_MS);
+        return (float) (SKILL_WEIGHT * skill + BUDGET_WEIGHT * budget + RECENCY_WEIGHT * recency);
+    }
+
+    private static int overlap(String[] userSkills, String[] taskSkills) {
+        int n = 0;
+        for (String t : taskSkills) {
+            for (String u : userSkills) {
+                if (t.equals(u)) {
+                    n++;
+                    break;
+                }
+            }
+        }
+        return n;
+    }
+
+    private List<Feed> feedsSharingSkills(String[] skills) {
+        Set<Integer> userIds = new HashSet<>();
+        for (String skill : skills) {
+            Set<Integer> users = freelancersBySkill.get(skill);
+            if (users != null) {
+                userIds.addAll(users);
+            }
+        }
+        List<Feed> result = new ArrayList<>(userIds.size());
+        synchronized (this) {
+            for (int userId : userIds) {
+                Feed feed = feeds.get(userId);
+                if (feed != null) {
+                    result.add(feed);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void unindex(Feed feed) {
+        for (String skill : feed.skills) {
+            Set<Integer> users = freelancersBySkill.get(skill);
+            if (users != null) {
+                users.remove(feed.userId);
+                if (users.isEmpty()) {
+                    freelancersBySkill.remove(skill, users);
+                }
+            }
+        }
+    }
+}
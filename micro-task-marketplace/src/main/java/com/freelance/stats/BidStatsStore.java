@@ -0,0 +1,158 @@
+package com.freelance.stats;
+
+import com.freelance.dao.ApplicationDAO;
+import com.freelance.models.Application;
+import com.freelance.models.BidStats;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running bid aggregates per task (count, sum, min, max, median sketch and the N lowest bids),
+ * updated on every successful application so the details page never has to GROUP BY applications.
+ * Each update is O(1) plus O(log N) for the shortlist heap.
+ */
+public class BidStatsStore {
+    private static final BidStatsStore INSTANCE = new BidStatsStore();
+    private static final int SHORTLIST_SIZE = Integer.getInteger("bids.shortlistSize", 5);
+
+    private volatile ConcurrentHashMap<Integer, TaskBids> byTask = new ConcurrentHashMap<>();
+
+    public static BidStatsStore getInstance() {
+        return INSTANCE;
+    }
+
+    /** Streams every application from the database into fresh aggregates, then swaps them in. */
+    public void rebuild(ApplicationDAO applicationDAO) {
+        ConcurrentHashMap<Integer, TaskBids> fresh = new ConcurrentHashMap<>();
+        applicationDAO.forEachApplication(app -> fresh.computeIfAbsent(app.getTaskId(), id -> new TaskBids()).add(app));
+        byTask = fresh;
+    }
+
+    public void onApplication(Application app) {
+        byTask.computeIfAbsent(app.getTaskId(), id -> new TaskBids()).add(app);
+    }
+
+    public BidStats getStats(int taskId) {
+        TaskBids bids = byTask.get(taskId);
+        return bids == null ? BidStats.empty(taskId) : bids.snapshot(taskId);
+    }
+
+    public int getTaskCount() {
+        return byTask.size();
+    }
+
+    private static final class TaskBids {
+        private int count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private final P2Median median = new P2Median();
+        // Max-heap of the lowest bids: the root is the first to go when a cheaper bid arrives
+        private final PriorityQueue<Application> shortlist = new PriorityQueue<>(SHORTLIST_SIZE + 1,
+                (a, b) -> Double.compare(b.getBidAmount(), a.getBidAmount()));
+
+        synchronized void add(Application app) {
+            double bid = app.getBidAmount();
+            count++;
+            sum += bid;
+            min = Math.min(min, bid);
+            max = Math.max(max, bid);
+            median.add(bid);
+            if (shortlist.size() < SHORTLIST_SIZE) {
+                shortlist.offer(app);
+            } else if (bid < shortlist.peek().getBidAmount()) {
+                shortlist.poll();
+                shortlist.offer(app);
+            }
+        }
+
+        synchronized BidStats snapshot(int taskId) {
+            List<Application> lowest = new ArrayList<>(shortlist);
+            lowest.sort((a, b) -> Double.compare(a.getBidAmount(), b.getBidAmount()));
+            return new BidStats(taskId, count, sum / count, min, max, median.get(), lowest);
+        }
+    }
+
+    /**
+     * P² streaming median (Jain & Chlamtac): five markers whose heights are nudged towards the
+     * ideal quantile positions with a piecewise-parabolic fit, so memory stays constant per task.
+     */
+    static final class P2Median {
+        private static final double[] INCREMENT = {0, 0.25, 0.5, 0.75, 1};
+
+        private final double[] height = new double[5];
+        private final int[] position = new int[5];
+        private final double[] desired = new double[5];
+        private int count;
+
+        void add(double x) {
+            if (count < 5) {
+                height[count++] = x;
+                if (count == 5) {
+                    Arrays.sort(height);
+                    for (int i = 0; i < 5; i++) {
+                        position[i] = i;
+                        desired[i] = i;
+                    }
+                }
+                return;
+            }
+            count++;
+
+            int k;
+            if (x < height[0]) {
+                height[0] = x;
+                k = 0;
+            } else if (x >= height[4]) {
+                height[4] = x;
+                k = 3;
+            } else {
+                k = 0;
+                while (x >= height[k + 1]) {
+                    k++;
+                }
+            }
+            for (int i = k + 1; i < 5; i++) {
+                position[i]++;
+            }
+            for (int i = 0; i < 5; i++) {
+                desired[i] += INCREMENT[i];
+            }
+
+            for (int i = 1; i < 4; i++) {
+                double d = desired[i] - position[i];
+                if ((d >= 1 && position[i + 1] - position[i] > 1) || (d <= -1 && position[i - 1] - position[i] < -1)) {
+                    int step = d > 0 ? 1 : -1;
+                    double h = parabolic(i, step);
+                    height[i] = height[i - 1] < h && h < height[i + 1] ? h : linear(i, step);
+                    position[i] += step;
+                }
+            }
+        }
+
+        double get() {
+            if (count == 0) {
+                return 0;
+            }
+            if (count < 5) {
+                double[] sorted = Arrays.copyOf(height, count);
+                Arrays.sort(sorted);
+                return count % 2 == 1 ? sorted[count / 2] : (sorted[count / 2 - 1] + sorted[count / 2]) / 2;
+            }
+            return height[2];
+        }
+
+        private double parabolic(int i, int d) {
+            return height[i] + (double) d / (position[i + 1] - position[i - 1])
+                    * ((position[i] - position[i - 1] + d) * (height[i + 1] - height[i]) / (position[i + 1] - position[i])
+                    + (position[i + 1] - position[i] - d) * (height[i] - height[i - 1]) / (position[i] - position[i - 1]));
+        }
+
+        private double linear(int i, int d) {
+            return height[i] + d * (height[i + d] - height[i]) / (position[i + d] - position[i]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.freelance.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission policy for the servlet routes (see AdmissionControlFilter): a token bucket per user,
+ * or per client IP for anonymous requests, for each route and method that has a limit, and a
+ * process-wide cap on requests in flight. Limits are read from system properties named after the
+ * route and method, e.g. -Dadmission.chat.post.perSecond=1 -Dadmission.chat.post.burst=10;
+ * perSecond=0 turns a default limit off.
+ */
+public class AdmissionControl {
+    public enum Result { ADMITTED, RATE_LIMITED, OVERLOADED }
+
+    private static final AdmissionControl INSTANCE = new AdmissionControl(
+            Integer.getInteger("admission.maxConcurrent", 2 * Integer.getInteger("db.pool.maxSize", 20)),
+            Integer.getInteger("admission.stripes", 64));
+
+    // perSecond and burst when no property is set; routes not listed are unlimited by default
+    private static final Map<String, double[]> DEFAULT_LIMITS = Map.of(
+            "/chat GET", new double[]{2, 20},
+            "/chat POST", new double[]{1, 10},
+            "/apply POST", new double[]{0.2, 5});
+
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final int stripes;
+    private final ConcurrentHashMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    public AdmissionControl(int maxConcurrent, int stripes) {
+        this.maxConcurrent = maxConcurrent;
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        this.stripes = stripes;
+    }
+
+    public static AdmissionControl getInstance() {
+        return INSTANCE;
+    }
+
+    /** Key is "route method", e.g. "/chat POST", with the method bounded like Metrics.http. */
+    public Route route(String route, String method) {
+        return routes.computeIfAbsent(route + " " + Metrics.method(method), this::newRoute);
+    }
+
+    private Route newRoute(String key) {
+        String[] parts = key.split(" ", 2);
+        String prefix = "admission." + parts[0].substring(1).replace('/', '.') + "." + parts[1].toLowerCase() + ".";
+        double[] defaults = DEFAULT_LIMITS.getOrDefault(key, new double[]{0, 1});
+        double perSecond = defaults[0];
+        int burst = (int) defaults[1];
+        try {
+            perSecond = Double.parseDouble(System.getProperty(prefix + "perSecond", Double.toString(perSecond)));
+            burst = Integer.parseInt(System.getProperty(prefix + "burst", Integer.toString(burst)));
+        } catch (NumberFormatException e) {
+            e.printStackTrace();
+        }
+        return new Route(key, perSecond > 0 ? new RateLimiter(perSecond, Math.max(1, burst), stripes) : null);
+    }
+
+    /** Takes a slot, or returns false without waiting when all are in use. */
+    public boolean tryEnter() {
+        return permits == null || permits.tryAcquire();
+    }
+
+    public void exit() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    public int getMaxConcurrent() { return maxConcurrent; }
+    public int getInFlight() { return permits == null ? 0 : maxConcurrent - permits.availablePermits(); }
+    public Map<String, Route> getRoutes() { return routes; }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder(permits == null ? "no concurrency cap" : "at most " + maxConcurrent + " in flight");
+        for (String key : DEFAULT_LIMITS.keySet()) {
+            RateLimiter limiter = routes.computeIfAbsent(key, this::newRoute).getLimiter();
+            sb.append(", ").append(key).append(' ')
+                    .append(limiter == null ? "unlimited" : limiter.getPerSecond() + "/s burst " + limiter.getBurst());
+        }
+        return sb.toString();
+    }
+
+    public static class Route {
+        private final String key;
+        private final RateLimiter limiter;
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder overloaded = new LongAdder();
+
+        Route(String key, RateLimiter limiter) {
+            this.key = key;
+            this.limiter = limiter;
+        }
+
+        /** 0 if the client may go ahead; otherwise the nanoseconds until it may. */
+        public long tryAcquire(String client) {
+            return limiter == null ? 0 : limiter.tryAcquire(client, System.nanoTime());
+        }
+
+        public void record(Result result) {
+            switch (result) {
+                case ADMITTED: admitted.increment(); break;
+                case RATE_LIMITED: rateLimited.increment(); break;
+                default: overloaded.increment(); break;
+            }
+        }
+
+        public String getKey() { return key; }
+        public RateLimiter getLimiter() { return limiter; }
+        public int getBucketCount() { return limiter == null ? 0 : limiter.getBucketCount(); }
+        public long getAdmittedCount() { return admitted.sum(); }
+        public long getRateLimitedCount() { return rateLimited.sum(); }
+        public long getOverloadedCount() { return overloaded.sum(); }
+    }
+}
@@ -0,0 +1,89 @@
+package com.freelance.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cheap in-process change counters used to build ETags. DAOs bump them on every write, so a
+ * conditional GET can be answered with 304 from a map lookup without touching the database.
+ * The boot epoch is part of every tag, so tags issued before a restart never match again.
+ *
+ * Each counter also remembers when it last moved, so reads of recently changed data can be sent to
+ * the primary instead of a replica that may not have caught up yet (see DBConnection.getReadConnection).
+ */
+public class ChangeVersions {
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    private static final Version TASKS = new Version();
+    private static final ConcurrentHashMap<Integer, Version> TASK_VERSIONS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, Version> CHAT_VERSIONS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, Version> USER_VERSIONS = new ConcurrentHashMap<>();
+
+    private static final class Version {
+        final AtomicLong value = new AtomicLong();
+        volatile long changedAt;
+
+        void bump() {
+            changedAt = System.currentTimeMillis();
+            value.incrementAndGet();
+        }
+    }
+
+    /** A task was created or changed: bumps both its own version and the global listing version. */
+    public static void taskChanged(int taskId) {
+        TASK_VERSIONS.computeIfAbsent(taskId, k -> new Version()).bump();
+        TASKS.bump();
+    }
+
+    /** Something shown on a task's details page changed (e.g. a new application), but not the listing. */
+    public static void taskDetailsChanged(int taskId) {
+        TASK_VERSIONS.computeIfAbsent(taskId, k -> new Version()).bump();
+    }
+
+    public static void chatChanged(int taskId) {
+        CHAT_VERSIONS.computeIfAbsent(taskId, k -> new Version()).bump();
+    }
+
+    /** A user's profile or rating changed. */
+    public static void userChanged(int userId) {
+        USER_VERSIONS.computeIfAbsent(userId, k -> new Version()).bump();
+    }
+
+    public static long tasksVersion() {
+        return TASKS.value.get();
+    }
+
+    public static long taskVersion(int taskId) {
+        Version v = TASK_VERSIONS.get(taskId);
+        return v == null ? 0 : v.value.get();
+    }
+
+    public static long chatVersion(int taskId) {
+        Version v = CHAT_VERSIONS.get(taskId);
+        return v == null ? 0 : v.value.get();
+    }
+
+    // When the data last changed in this JVM (epoch millis), 0 if it hasn't since startup
+
+    public static long tasksChangedAt() {
+        return TASKS.changedAt;
+    }
+
+    public static long taskChangedAt(int taskId) {
+        Version v = TASK_VERSIONS.get(taskId);
+        return v == null ? 0 : v.changedAt;
+    }
+
+    public static long chatChangedAt(int taskId) {
+        Version v = CHAT_VERSIONS.get(taskId);
+        return v == null ? 0 : v.changedAt;
+    }
+
+    public static long userChangedAt(int userId) {
+        Version v = USER_VERSIONS.get(userId);
+        return v == null ? 0 : v.changedAt;
+    }
+
+    public static String epoch() {
+        return EPOCH;
+    }
+}
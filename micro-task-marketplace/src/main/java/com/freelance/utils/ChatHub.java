@@ -0,0 +1,170 @@
+package com.freelance.utils;
+
+import com.freelance.models.Message;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-process fan-out of new chat messages to parked long-poll requests, keyed by taskId.
+ * A waiting request costs one small Subscriber object: no thread and no DB query until
+ * a message for its task is published or it times out.
+ */
+public class ChatHub {
+    private static final ChatHub INSTANCE = new ChatHub(
+            Integer.getInteger("chat.hub.bufferSize", 64),
+            Integer.getInteger("chat.hub.maxSubscribers", 10_000),
+            Integer.getInteger("chat.hub.maxTracked", 10_000));
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final int maxTracked;
+    private final ConcurrentHashMap<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // Per task, the highest msg_id a DB read returned and the chat version it was read at, so a poller
+    // that is already up to date can park without querying
+    private final ConcurrentHashMap<Integer, Latest> latestMsgIds = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public ChatHub(int bufferSize, int maxSubscribers, int maxTracked) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.maxTracked = maxTracked;
+    }
+
+    public static ChatHub getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers interest in messages for a task. onReady fires at most once, after the first
+     * publish for this task; the subscriber should then drain() its buffer. Returns null when
+     * the hub is full and the caller should answer immediately instead of parking.
+     */
+    public Subscriber subscribe(int taskId, Consumer<Subscriber> onReady) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        Subscriber sub = new Subscriber(taskId, onReady);
+        subscribers.computeIfAbsent(taskId, k -> ConcurrentHashMap.newKeySet()).add(sub);
+        return sub;
+    }
+
+    public void unsubscribe(Subscriber sub) {
+        Set<Subscriber> set = subscribers.get(sub.taskId);
+        if (set != null && set.remove(sub)) {
+            subscriberCount.decrementAndGet();
+            if (set.isEmpty()) {
+                subscribers.remove(sub.taskId, set);
+            }
+        }
+    }
+
+    public void publish(Message msg) {
+        Set<Subscriber> set = subscribers.get(msg.getTaskId());
+        if (set == null) {
+            return;
+        }
+        for (Subscriber sub : set) {
+            sub.offer(msg);
+        }
+    }
+
+    /**
+     * Records the newest msg_id a DB read returned for a task, with the ChangeVersions.chatVersion
+     * taken before the read. Only ids read from the DB belong here, never a client's since.
+     */
+    public void noteLatest(int taskId, int msgId, long version) {
+        if (latestMsgIds.size() >= maxTracked && !latestMsgIds.containsKey(taskId)) {
+            return;
+        }
+        latestMsgIds.merge(taskId, new Latest(msgId, version),
+                (a, b) -> a.version != b.version ? (a.version > b.version ? a : b) : (a.msgId >= b.msgId ? a : b));
+    }
+
+    /**
+     * True if a DB read at the current chat version already showed nothing newer than since. Any
+     * write the DAOs record (a post, a bulk import) bumps the version and makes the entry stale, so
+     * this is only as authoritative as ChangeVersions: one instance, or sticky routing by task.
+     */
+    public boolean isUpToDate(int taskId, int since, long version) {
+        Latest latest = latestMsgIds.get(taskId);
+        if (latest == null) {
+            return false;
+        }
+        if (latest.version != version) {
+            latestMsgIds.remove(taskId, latest);
+            return false;
+        }
+        return latest.msgId <= since;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private static final class Latest {
+        final int msgId;
+        final long version;
+
+        Latest(int msgId, long version) {
+            this.msgId = msgId;
+            this.version = version;
+        }
+    }
+
+    public class Subscriber {
+        private final int taskId;
+        private final Consumer<Subscriber> onReady;
+        private final AtomicBoolean fired = new AtomicBoolean();
+        private final ArrayDeque<Message> buffer = new ArrayDeque<>();
+        private boolean overflowed;
+
+        Subscriber(int taskId, Consumer<Subscriber> onReady) {
+            this.taskId = taskId;
+            this.onReady = onReady;
+        }
+
+        private void offer(Message msg) {
+            synchronized (this) {
+                if (buffer.size() < bufferSize) {
+                    buffer.add(msg);
+                } else {
+                    // Client will pick the rest up from the DB on its next poll
+                    overflowed = true;
+                }
+            }
+            if (fired.compareAndSet(false, true)) {
+                onReady.accept(this);
+            }
+        }
+
+        /** Claims the subscriber for a non-publish outcome (timeout, DB hit). False if a publish already won. */
+        public boolean cancel() {
+            if (fired.compareAndSet(false, true)) {
+                unsubscribe(this);
+                return true;
+            }
+            return false;
+        }
+
+        /** Takes everything buffered so far and detaches from the hub. */
+        public List<Message> drain() {
+            unsubscribe(this);
+            synchronized (this) {
+                List<Message> out = new ArrayList<>(buffer);
+                buffer.clear();
+                return out;
+            }
+        }
+
+        public synchronized boolean isOverflowed() {
+            return overflowed;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.freelance.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small bounded JDBC connection pool. Borrowers wait fairly (FIFO) for a permit,
+ * idle connections are validated before being handed out and closed once they
+ * sit unused longer than the idle timeout (never going below minSize).
+ * Each connection keeps up to statementCacheSize prepared statements open across borrows.
+ */
+public class ConnectionPool {
+    private final String name;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+    private final long validationIntervalMs;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    // Stats
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder borrowNanos = new LongAdder();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    public ConnectionPool(String name, String url, String user, String password,
+                          int minSize, int maxSize, long idleTimeoutMs, long borrowTimeoutMs) {
+        this(name, url, user, password, minSize, maxSize, idleTimeoutMs, borrowTimeoutMs, 0);
+    }
+
+    public ConnectionPool(String name, String url, String user, String password,
+                          int minSize, int maxSize, long idleTimeoutMs, long borrowTimeoutMs, int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.name = name;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.validationIntervalMs = 500;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-" + name + "-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMs / 2);
+        evictor.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool '" + name + "' is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            // The timed form even with 0: plain tryAcquire() barges past queued waiters on a fair semaphore
+            if (!permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                waits.increment();
+                if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    exhausted.increment();
+                    throw new SQLTransientConnectionException("Connection pool '" + name + "' exhausted: no connection available within "
+                            + borrowTimeoutMs + "ms (max=" + maxSize + ")");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledConnection pc = takeIdle();
+            if (pc == null) {
+                pc = openPhysical();
+            }
+            recordBorrow(System.nanoTime() - start);
+            return new Lease(pc).proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeIdle() {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pc.lastUsed < validationIntervalMs || isValid(pc)) {
+                return pc;
+            }
+            validationFailures.increment();
+            closePhysical(pc);
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledConnection pc) {
+        try {
+            return pc.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        open.incrementAndGet();
+        created.increment();
+        return new PooledConnection(physical,
+                statementCacheSize > 0 ? new StatementCache(statementCacheSize, statementHits, statementMisses) : null);
+    }
+
+    private void recordBorrow(long nanos) {
+        borrows.increment();
+        borrowNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxBorrowNanos.get())) {
+            if (maxBorrowNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        try {
+            if (pc.statements != null) {
+                pc.statements.release();
+            }
+            if (closed || pc.physical.isClosed()) {
+                closePhysical(pc);
+                return;
+            }
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            if (pc.physical.isReadOnly()) {
+                pc.physical.setReadOnly(false);
+            }
+            pc.physical.clearWarnings();
+            pc.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pc);
+        } catch (SQLException e) {
+            closePhysical(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void closePhysical(PooledConnection pc) {
+        open.decrementAndGet();
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    // Evicts connections idle past the timeout, then tops the pool back up to minSize.
+    private void maintain() {
+        if (closed) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && open.get() > minSize) {
+            PooledConnection pc = it.next();
+            if (pc.lastUsed < cutoff && idle.remove(pc)) {
+                evicted.increment();
+                closePhysical(pc);
+            }
+        }
+        try {
+            while (open.get() < minSize && permits.tryAcquire()) {
+                try {
+                    PooledConnection pc = openPhysical();
+                    pc.lastUsed = System.currentTimeMillis();
+                    idle.offerLast(pc);
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (SQLException e) {
+            // Database unavailable; retry on the next run.
+        }
+    }
+
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        List<PooledConnection> drained = new ArrayList<>();
+        idle.drainTo(drained);
+        for (PooledConnection pc : drained) {
+            closePhysical(pc);
+        }
+    }
+
+    public String getName() { return name; }
+    public int getMaxSize() { return maxSize; }
+    public int getMinSize() { return minSize; }
+    public int getOpenConnections() { return open.get(); }
+    public int getIdleConnections() { return idle.size(); }
+    public int getActiveConnections() { return maxSize - permits.availablePermits(); }
+    public int getWaitingThreads() { return permits.getQueueLength(); }
+    public long getBorrowCount() { return borrows.sum(); }
+    public long getBorrowNanosTotal() { return borrowNanos.sum(); }
+    public long getMaxBorrowNanos() { return maxBorrowNanos.get(); }
+    public long getWaitCount() { return waits.sum(); }
+    public long getExhaustedCount() { return exhausted.sum(); }
+    public long getCreatedCount() { return created.sum(); }
+    public long getEvictedCount() { return evicted.sum(); }
+    public long getValidationFailures() { return validationFailures.sum(); }
+    public int getStatementCacheSize() { return statementCacheSize; }
+    public long getStatementCacheHits() { return statementHits.sum(); }
+    public long getStatementCacheMisses() { return statementMisses.sum(); }
+
+    public double getAverageBorrowMillis() {
+        long n = borrows.sum();
+        return n == 0 ? 0 : borrowNanos.sum() / 1_000_000.0 / n;
+    }
+
+    private static final class PooledConnection {
+        final Connection physical;
+        // Null when statement caching is off
+        final StatementCache statements;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PooledConnection(Connection physical, StatementCache statements) {
+            this.physical = physical;
+            this.statements = statements;
+        }
+    }
+
+    // One lease per borrow; close() hands the connection back instead of closing it,
+    // and any later use of the same handle fails rather than touching the next borrower's connection.
+    private final class Lease implements InvocationHandler {
+        final PooledConnection pc;
+        final Connection proxy;
+        private boolean returned;
+
+        Lease(PooledConnection pc) {
+            this.pc = pc;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (returned) {
+                            return null;
+                        }
+                        returned = true;
+                    }
+                    release(pc);
+                    return null;
+                case "isClosed":
+                    return returned || pc.physical.isClosed();
+                case "equals":
+                    return p == args[0];
+                case "hashCode":
+                    return System.identityHashCode(p);
+                case "toString":
+                    return "Pooled[" + name + "]" + pc.physical;
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+            }
+            if (pc.statements != null && "prepareStatement".equals(method.getName())) {
+                PreparedStatement cached = pc.statements.prepare(pc.physical, proxy, args);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.freelance.utils;
+
+import com.freelance.dao.UserDAO;
+import com.freelance.models.User;
+import com.freelance.models.UserPrincipal;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * The logged-in user for a request. Sessions hold only a UserPrincipal; servlets and JSPs that need
+ * the profile call get(), which is served from UserDAO's profile cache.
+ */
+public class CurrentUser {
+    public static final String SESSION_KEY = "principal";
+
+    private static final UserDAO USER_DAO = new UserDAO();
+
+    public static void login(HttpSession session, User user) {
+        session.setAttribute(SESSION_KEY, new UserPrincipal(user.getId(), user.getRole()));
+    }
+
+    public static UserPrincipal principal(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session == null ? null : (UserPrincipal) session.getAttribute(SESSION_KEY);
+    }
+
+    /** 0 when nobody is logged in. */
+    public static int id(HttpServletRequest request) {
+        UserPrincipal principal = principal(request);
+        return principal == null ? 0 : principal.getId();
+    }
+
+    /**
+     * The full profile, or null when nobody is logged in. Treat it as read-only: it is shared.
+     * If the profile can't be read the IllegalStateException from UserDAO propagates, so the request
+     * fails with a 5xx instead of treating a logged-in user as logged out.
+     */
+    public static User get(HttpServletRequest request) {
+        UserPrincipal principal = principal(request);
+        return principal == null ? null : USER_DAO.getUserById(principal.getId());
+    }
+}
@@ -1,23 +1,115 @@
 package com.freelance.utils;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 public class DBConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/freelance_marketplace?useSSL=false&serverTimezone=UTC";
+    private static final String URL = "jdbc:mysql://localhost:3306/freelance_marketplace?useSSL=false&serverTimezone=UTC&rewriteBatchedStatements=true";
     private static final String USER = "root";
     private static final String PASSWORD = "root"; // CHANGE THIS TO YOUR DB PASSWORD
 
+    // Pool settings can be overridden with -Ddb.pool.minSize=... etc.
+    private static final ConnectionPool POOL;
+    // Read replicas from -Ddb.replicaUrls=jdbc:mysql://r1/...,jdbc:mysql://r2/...; null when there are none
+    private static final ReplicaRouter REPLICAS;
+    private static final LongAdder PRIMARY_READS = new LongAdder();
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows one at a time instead of buffering the whole result
+    private static final int STREAMING_FETCH_SIZE = Integer.getInteger("db.streamingFetchSize", Integer.MIN_VALUE);
+    // Prepared statements kept open per pooled connection; 0 turns the cache off
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("db.pool.statementCacheSize", 64);
+
     static {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
         }
+        POOL = new ConnectionPool("primary",
+                System.getProperty("db.url", URL),
+                System.getProperty("db.user", USER),
+                System.getProperty("db.password", PASSWORD),
+                Integer.getInteger("db.pool.minSize", 2),
+                Integer.getInteger("db.pool.maxSize", 20),
+                Long.getLong("db.pool.idleTimeoutMs", 300_000L),
+                Long.getLong("db.pool.borrowTimeoutMs", 5_000L),
+                STATEMENT_CACHE_SIZE);
+        REPLICAS = createReplicaRouter();
+    }
+
+    private static ReplicaRouter createReplicaRouter() {
+        String urls = System.getProperty("db.replicaUrls", "").trim();
+        if (urls.isEmpty()) {
+            return null;
+        }
+        List<ConnectionPool> pools = new ArrayList<>();
+        // Split only before "jdbc:", since the URLs themselves may contain commas
+        for (String url : urls.split(",\\s*(?=jdbc:)")) {
+            pools.add(new ConnectionPool("replica-" + (pools.size() + 1), url.trim(),
+                    System.getProperty("db.replica.user", System.getProperty("db.user", USER)),
+                    System.getProperty("db.replica.password", System.getProperty("db.password", PASSWORD)),
+                    Integer.getInteger("db.pool.minSize", 2),
+                    Integer.getInteger("db.replica.pool.maxSize", Integer.getInteger("db.pool.maxSize", 20)),
+                    Long.getLong("db.pool.idleTimeoutMs", 300_000L),
+                    Long.getLong("db.pool.borrowTimeoutMs", 5_000L),
+                    STATEMENT_CACHE_SIZE));
+        }
+        return new ReplicaRouter(pools, Long.getLong("db.replica.healthCheckMs", 5_000L));
     }
 
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        long start = System.nanoTime();
+        Connection conn = POOL.getConnection();
+        Metrics.connectionAcquire().recordSince(start);
+        return conn;
+    }
+
+    /** A connection for a read whose data has no change timestamp; see getReadConnection(long). */
+    public static Connection getReadConnection() throws SQLException {
+        return getReadConnection(0);
+    }
+
+    /**
+     * A connection for a read-only query: a healthy replica when ReadConsistency allows it for data
+     * last changed at changedAt (a ChangeVersions timestamp, 0 if unknown), otherwise the primary.
+     */
+    public static Connection getReadConnection(long changedAt) throws SQLException {
+        if (REPLICAS != null && !ReadConsistency.requiresPrimary(changedAt)) {
+            long start = System.nanoTime();
+            Connection conn = REPLICAS.getConnection();
+            if (conn != null) {
+                Metrics.connectionAcquire().recordSince(start);
+                return conn;
+            }
+        }
+        PRIMARY_READS.increment();
+        return getConnection();
+    }
+
+    /** Fetch size to use on forward-only, read-only statements that walk a whole table. */
+    public static int getStreamingFetchSize() {
+        return STREAMING_FETCH_SIZE;
+    }
+
+    public static ConnectionPool getPool() {
+        return POOL;
+    }
+
+    public static ReplicaRouter getReplicas() {
+        return REPLICAS;
+    }
+
+    /** Reads routed to the primary by getReadConnection (consistency, no healthy replica, or no replicas). */
+    public static long getPrimaryReadCount() {
+        return PRIMARY_READS.sum();
+    }
+
+    public static void shutdown() {
+        if (REPLICAS != null) {
+            REPLICAS.close();
+        }
+        POOL.close();
     }
 }
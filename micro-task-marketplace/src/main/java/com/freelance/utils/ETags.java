@@ -0,0 +1,38 @@
+package com.freelance.utils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class ETags {
+
+    /** Builds a strong ETag from the boot epoch plus the given parts: "epoch-a-b-c". */
+    public static String of(Object... parts) {
+        StringBuilder sb = new StringBuilder("\"").append(ChangeVersions.epoch());
+        for (Object part : parts) {
+            sb.append('-').append(part);
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Sets the ETag on the response and answers 304 if the client already has it.
+     * Returns true when the caller should stop (304 sent).
+     */
+    public static boolean notModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        response.setHeader("ETag", etag);
+        // Let browsers keep the copy but always revalidate it
+        response.setHeader("Cache-Control", "private, no-cache");
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals(etag) || tag.equals("*")) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+        return false;
+    }
+}
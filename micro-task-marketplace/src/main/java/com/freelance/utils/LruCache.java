@@ -0,0 +1,228 @@
+package com.freelance.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache with LRU eviction and a per-entry TTL.
+ * Concurrent misses on the same key share one load (no stampede on the DB). The in-flight load is
+ * the key's token: invalidating the key drops it, so a load that raced with an invalidation of its
+ * own key is returned to its callers but not cached, while loads of other keys are unaffected.
+ * A loader's exception reaches every caller sharing the load as itself. Null results are not cached.
+ */
+public class LruCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> map;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public LruCache(String name, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        misses.increment();
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            // Someone else is already loading this key; wait for their result
+            return await(inFlight);
+        }
+        V value;
+        try {
+            loads.increment();
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            loading.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        finish(key, mine, value);
+        return value;
+    }
+
+    /**
+     * The cached values for the keys plus whatever one call to the batch loader returns for the
+     * misses; keys with no value are left out. Misses already being loaded by another caller are
+     * waited for instead of loaded again, and the batch's own loads can be shared the same way.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            V cached = getIfPresent(key);
+            if (cached != null) {
+                found.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        misses.add(missing.size());
+
+        Map<K, CompletableFuture<V>> mine = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> theirs = new HashMap<>();
+        for (K key : missing) {
+            CompletableFuture<V> f = new CompletableFuture<>();
+            CompletableFuture<V> inFlight = loading.putIfAbsent(key, f);
+            if (inFlight == null) {
+                mine.put(key, f);
+            } else {
+                theirs.put(key, inFlight);
+            }
+        }
+        if (!mine.isEmpty()) {
+            Map<K, V> loaded;
+            try {
+                loads.increment();
+                loaded = loader.apply(new ArrayList<>(mine.keySet()));
+            } catch (RuntimeException | Error e) {
+                for (Map.Entry<K, CompletableFuture<V>> f : mine.entrySet()) {
+                    loading.remove(f.getKey(), f.getValue());
+                    f.getValue().completeExceptionally(e);
+                }
+                throw e;
+            }
+            for (Map.Entry<K, CompletableFuture<V>> f : mine.entrySet()) {
+                V value = loaded.get(f.getKey());
+                finish(f.getKey(), f.getValue(), value);
+                if (value != null) {
+                    found.put(f.getKey(), value);
+                }
+            }
+        }
+        for (Map.Entry<K, CompletableFuture<V>> f : theirs.entrySet()) {
+            V value = await(f.getValue());
+            if (value != null) {
+                found.put(f.getKey(), value);
+            }
+        }
+        return found;
+    }
+
+    // Caches the value unless the key was invalidated while it loaded (which dropped this load from
+    // loading), then hands it to whoever is waiting on the same load
+    private void finish(K key, CompletableFuture<V> load, V value) {
+        synchronized (map) {
+            if (loading.remove(key, load) && value != null) {
+                put(key, value);
+            }
+        }
+        load.complete(value);
+    }
+
+    // join() wraps the loader's exception in CompletionException; rethrow what the loader threw
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public V getIfPresent(K key) {
+        synchronized (map) {
+            Entry<V> e = map.get(key);
+            if (e == null) {
+                return null;
+            }
+            if (e.expiresAt < System.currentTimeMillis()) {
+                map.remove(key);
+                expirations.increment();
+                return null;
+            }
+            hits.increment();
+            return e.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (map) {
+            map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+            if (map.size() > maxSize) {
+                Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            loading.remove(key);
+            map.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (map) {
+            loading.clear();
+            map.clear();
+        }
+    }
+
+    public String getName() { return name; }
+    public int getMaxSize() { return maxSize; }
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getLoadCount() { return loads.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public long getExpirationCount() { return expirations.sum(); }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
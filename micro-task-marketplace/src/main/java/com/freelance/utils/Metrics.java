@@ -0,0 +1,68 @@
+package com.freelance.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide metrics registry. Series are created on first use and then only updated,
+ * so the hot path is a map lookup plus lock-free increments.
+ */
+public class Metrics {
+    private static final ConcurrentHashMap<String, LatencyHistogram> HTTP = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, QueryStats> QUERIES = new ConcurrentHashMap<>();
+    private static final LatencyHistogram CONNECTION_ACQUIRE = new LatencyHistogram();
+
+    /** Key is "route method", e.g. "/tasks GET"; see method() for the method part. */
+    public static LatencyHistogram http(String route, String method) {
+        return HTTP.computeIfAbsent(route + " " + method(method), k -> new LatencyHistogram());
+    }
+
+    /**
+     * GET, POST or HEAD, and OTHER for anything else: the method token comes from the client, so
+     * keying series on it as-is would let anyone add series (and memory) without bound.
+     */
+    public static String method(String method) {
+        switch (method) {
+            case "GET":
+            case "POST":
+            case "HEAD":
+                return method;
+            default:
+                return "OTHER";
+        }
+    }
+
+    public static LatencyHistogram connectionAcquire() {
+        return CONNECTION_ACQUIRE;
+    }
+
+    public static QueryStats query(String name) {
+        return QUERIES.computeIfAbsent(name, k -> new QueryStats());
+    }
+
+    /** Records one DAO query: latency since startNanos and the number of rows it returned or changed. */
+    public static void recordQuery(String name, long startNanos, long rows) {
+        QueryStats stats = query(name);
+        stats.latency.recordSince(startNanos);
+        stats.rows.add(rows);
+    }
+
+    public static void recordQueryError(String name) {
+        query(name).errors.increment();
+    }
+
+    public static Map<String, LatencyHistogram> httpSeries() {
+        return HTTP;
+    }
+
+    public static Map<String, QueryStats> querySeries() {
+        return QUERIES;
+    }
+
+    public static class QueryStats {
+        public final LatencyHistogram latency = new LatencyHistogram();
+        public final LongAdder rows = new LongAdder();
+        public final LongAdder errors = new LongAdder();
+    }
+}
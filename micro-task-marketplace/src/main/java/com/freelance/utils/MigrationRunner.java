@@ -0,0 +1,210 @@
+package com.freelance.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned scripts under db/migration on the classpath, in order, and records each
+ * one in schema_migrations so it runs exactly once per database. A script whose checksum no longer
+ * matches the recorded one fails the migration: migrations are append-only, and a changed script
+ * means this database never got what the new version of it does.
+ *
+ * MySQL commits DDL implicitly, so a script that fails halfway leaves its earlier statements applied
+ * and is run again from the top on the next start. CREATE [UNIQUE] INDEX and ALTER TABLE ... ADD
+ * COLUMN are therefore skipped when the index or column already exists; other statements in a
+ * script must be safe to repeat (IF NOT EXISTS, or DML that recomputes rather than increments).
+ */
+public class MigrationRunner {
+    // Add new scripts at the end; never edit or reorder ones that have shipped
+    private static final String[] MIGRATIONS = {
+            "V1__baseline.sql",
+            "V2__hot_path_indexes.sql",
+            "V3__wallet_version.sql",
+            "V4__rating_aggregates.sql",
+            "V5__unique_reviews.sql",
+    };
+
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+`?(\\w+)`?\\s+ON\\s+`?(\\w+)`?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_COLUMN = Pattern.compile(
+            "ALTER\\s+TABLE\\s+`?(\\w+)`?\\s+ADD\\s+COLUMN\\s+`?(\\w+)`?", Pattern.CASE_INSENSITIVE);
+
+    private static final String TRACKING_TABLE = "CREATE TABLE IF NOT EXISTS schema_migrations ("
+            + "version INT PRIMARY KEY, "
+            + "description VARCHAR(200) NOT NULL, "
+            + "checksum VARCHAR(64) NOT NULL, "
+            + "execution_ms BIGINT NOT NULL, "
+            + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+
+    /** Brings the schema up to date and returns the scripts that were applied by this call. */
+    public static List<String> migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(TRACKING_TABLE);
+        }
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+
+        List<String> ran = new ArrayList<>();
+        for (String script : MIGRATIONS) {
+            int version = version(script);
+            String sql = load(script);
+            String checksum = checksum(sql);
+            String recorded = applied.get(version);
+            if (recorded != null) {
+                if (!recorded.equals(checksum)) {
+                    throw new SQLException("Migration " + script + " was modified after it was applied (checksum "
+                            + recorded + " -> " + checksum + "); add a new script instead");
+                }
+                continue;
+            }
+
+            long start = System.currentTimeMillis();
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                try (Statement stmt = conn.createStatement()) {
+                    for (String statement : statements(sql)) {
+                        if (!alreadyApplied(conn, statement)) {
+                            stmt.execute(statement);
+                        }
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO schema_migrations (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                    ps.setInt(1, version);
+                    ps.setString(2, description(script));
+                    ps.setString(3, checksum);
+                    ps.setLong(4, System.currentTimeMillis() - start);
+                    ps.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException("Migration " + script + " failed: " + e.getMessage(), e);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            ran.add(script);
+        }
+        return ran;
+    }
+
+    /** True for an index or column DDL statement whose index or column is already there. */
+    static boolean alreadyApplied(Connection conn, String statement) throws SQLException {
+        Matcher index = CREATE_INDEX.matcher(statement);
+        if (index.lookingAt()) {
+            return indexExists(conn, index.group(2), index.group(1));
+        }
+        Matcher column = ADD_COLUMN.matcher(statement);
+        if (column.lookingAt()) {
+            return columnExists(conn, column.group(1), column.group(2));
+        }
+        return false;
+    }
+
+    // Metadata lookups by name are case-sensitive and drivers differ on the stored case (MySQL keeps
+    // it, H2 upper-cases unless told otherwise), so both are compared without regard to case
+    private static boolean indexExists(Connection conn, String table, String index) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase(), table.toLowerCase()}) {
+            try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, name, false, true)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase(), table.toLowerCase()}) {
+            try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, name, null)) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Splits a script on ';' line endings after dropping "--" comment lines. */
+    static List<String> statements(String sql) {
+        StringBuilder kept = new StringBuilder();
+        for (String line : sql.split("\n")) {
+            if (!line.trim().startsWith("--")) {
+                kept.append(line).append('\n');
+            }
+        }
+        List<String> statements = new ArrayList<>();
+        for (String statement : kept.toString().split(";\\s*\n")) {
+            if (!statement.trim().isEmpty()) {
+                statements.add(statement.trim());
+            }
+        }
+        return statements;
+    }
+
+    private static int version(String script) {
+        return Integer.parseInt(script.substring(1, script.indexOf("__")));
+    }
+
+    private static String description(String script) {
+        return script.substring(script.indexOf("__") + 2, script.lastIndexOf('.')).replace('_', ' ');
+    }
+
+    private static String load(String script) throws SQLException {
+        try (InputStream in = MigrationRunner.class.getClassLoader().getResourceAsStream("db/migration/" + script)) {
+            if (in == null) {
+                throw new SQLException("Migration script not found on classpath: db/migration/" + script);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new SQLException("Could not read migration " + script, e);
+        }
+    }
+
+    private static String checksum(String sql) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sql.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.freelance.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per key (a user or an IP), as the generic cell rate algorithm: a bucket is a single
+ * AtomicLong holding the time at which it will be full again, so taking a token is a read and a CAS
+ * with no lock and no refill bookkeeping. A key may take `burst` tokens at once and earns them back
+ * at `perSecond`.
+ *
+ * Buckets live in a fixed number of ConcurrentHashMap stripes. A bucket that has refilled is the same
+ * as no bucket, so idle ones are dropped: now and then a caller sweeps the stripe it just used, which
+ * keeps memory proportional to the keys active in the last burst/perSecond seconds without a
+ * cleanup thread. A request racing with the sweep may spend its token in the dropped bucket; the
+ * key then starts from a full bucket, which is at most one extra token per racing request.
+ */
+public class RateLimiter {
+    // On average one acquire in this many sweeps its stripe
+    private static final int SWEEP_EVERY = 1024;
+
+    private final double perSecond;
+    private final int burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public RateLimiter(double perSecond, int burst, int stripeCount) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("perSecond must be > 0 and burst >= 1");
+        }
+        this.perSecond = perSecond;
+        this.burst = burst;
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.toleranceNanos = intervalNanos * burst;
+        int n = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ConcurrentHashMap[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /** 0 if the key had a token (now spent); otherwise the nanoseconds until it will have one. */
+    public long tryAcquire(String key, long nowNanos) {
+        ConcurrentHashMap<String, AtomicLong> stripe = stripeFor(key);
+        AtomicLong full = stripe.get(key);
+        if (full == null) {
+            full = stripe.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+        long wait;
+        while (true) {
+            long current = full.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            wait = next - nowNanos - toleranceNanos;
+            if (wait > 0 || full.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        if (ThreadLocalRandom.current().nextInt(SWEEP_EVERY) == 0) {
+            sweep(stripe, nowNanos);
+        }
+        return Math.max(wait, 0);
+    }
+
+    // Drops the buckets that are full again. removeIf on the values view removes an entry only if
+    // it still maps to the bucket that was tested
+    private static void sweep(ConcurrentHashMap<String, AtomicLong> stripe, long nowNanos) {
+        stripe.values().removeIf(full -> full.get() - nowNanos <= 0);
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> stripeFor(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    public double getPerSecond() { return perSecond; }
+    public int getBurst() { return burst; }
+
+    /** Buckets currently held; approximate while other threads are acquiring. */
+    public int getBucketCount() {
+        int count = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+}
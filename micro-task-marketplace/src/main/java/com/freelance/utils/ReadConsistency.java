@@ -0,0 +1,89 @@
+package com.freelance.utils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Decides whether a read may be served by a replica. Replicas can trail the primary by up to
+ * db.replica.maxLagMs, so a read goes to the primary when
+ *   - it isn't part of a web request (startup rebuilds, background jobs),
+ *   - this session wrote something within the lag window (read-your-writes across requests), or
+ *   - the data itself changed within the lag window (so shared caches and ETags never pick up a stale copy).
+ *
+ * ReadConsistencyFilter opens a Scope for every request; RequestExecutor carries it to worker threads.
+ */
+public class ReadConsistency {
+    private static final String LAST_WRITE = "lastWriteAt";
+    private static final long MAX_LAG_MS = Long.getLong("db.replica.maxLagMs", 5_000L);
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    /** Per-request routing state. */
+    public static final class Scope {
+        private final HttpServletRequest request;
+        private volatile boolean pinned;
+
+        private Scope(HttpServletRequest request, boolean pinned) {
+            this.request = request;
+            this.pinned = pinned;
+        }
+    }
+
+    public static Scope begin(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        Long lastWrite = session == null ? null : (Long) session.getAttribute(LAST_WRITE);
+        Scope scope = new Scope(request, lastWrite != null && isRecent(lastWrite));
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    /** Makes scope (may be null) the current one on this thread, e.g. a worker picking up a request. */
+    public static void bind(Scope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Called by DAOs after a successful write: the rest of this request, and the session's requests
+     * for the next db.replica.maxLagMs, read from the primary.
+     */
+    public static void recordWrite() {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        scope.pinned = true;
+        HttpSession session = scope.request.getSession(false);
+        if (session != null) {
+            try {
+                session.setAttribute(LAST_WRITE, System.currentTimeMillis());
+            } catch (IllegalStateException e) {
+                // Session was invalidated (logout)
+            }
+        }
+    }
+
+    /** True if a read of data last changed at changedAt (0 = unknown/long ago) must go to the primary. */
+    public static boolean requiresPrimary(long changedAt) {
+        Scope scope = CURRENT.get();
+        return scope == null || scope.pinned || (changedAt != 0 && isRecent(changedAt));
+    }
+
+    public static long getMaxLagMs() {
+        return MAX_LAG_MS;
+    }
+
+    private static boolean isRecent(long millis) {
+        return System.currentTimeMillis() - millis < MAX_LAG_MS;
+    }
+}
@@ -0,0 +1,121 @@
+package com.freelance.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Round-robin over a set of read replicas, each with its own ConnectionPool. A background check
+ * probes every replica each healthCheckMs; a replica that fails the probe or a borrow is skipped
+ * until a later probe succeeds. getConnection() returns null when no replica is usable, and the
+ * caller falls back to the primary.
+ */
+public class ReplicaRouter {
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+
+    public static final class Replica {
+        private final ConnectionPool pool;
+        private volatile boolean healthy = true;
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        Replica(ConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        public ConnectionPool getPool() { return pool; }
+        public boolean isHealthy() { return healthy; }
+        public long getReadCount() { return reads.sum(); }
+        public long getFailureCount() { return failures.sum(); }
+    }
+
+    public ReplicaRouter(List<ConnectionPool> pools, long healthCheckMs) {
+        List<Replica> list = new ArrayList<>(pools.size());
+        for (ConnectionPool pool : pools) {
+            list.add(new Replica(pool));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        this.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-replica-health");
+            t.setDaemon(true);
+            return t;
+        });
+        checker.scheduleWithFixedDelay(this::checkAll, healthCheckMs, healthCheckMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** A read-only connection to the next healthy replica, or null if none is available. */
+    public Connection getConnection() {
+        int n = replicas.size();
+        int first = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replica replica = replicas.get((first + i) % n);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection conn = replica.pool.getConnection();
+                try {
+                    conn.setReadOnly(true);
+                } catch (SQLException e) {
+                    conn.close();
+                    throw e;
+                }
+                replica.reads.increment();
+                return conn;
+            } catch (SQLTransientConnectionException e) {
+                // Pool exhausted: busy, not broken; try the next one
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void close() {
+        checker.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    private void checkAll() {
+        for (Replica replica : replicas) {
+            boolean ok;
+            String reason = "validation failed";
+            try (Connection conn = replica.pool.getConnection()) {
+                ok = conn.isValid(2);
+            } catch (SQLException e) {
+                ok = false;
+                reason = e.getMessage();
+            }
+            if (ok && !replica.healthy) {
+                replica.healthy = true;
+                System.out.println("Replica " + replica.pool.getName() + " is back in rotation");
+            } else if (!ok) {
+                markDown(replica, reason);
+            }
+        }
+    }
+
+    private void markDown(Replica replica, String reason) {
+        replica.failures.increment();
+        if (replica.healthy) {
+            replica.healthy = false;
+            System.err.println("Replica " + replica.pool.getName() + " taken out of rotation: " + reason);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.freelance.utils;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Runs servlet handlers that block on JDBC. By default a handler runs inline on the container
+ * thread, as before. With -Dhttp.virtualThreads=true the request is put into async mode and the
+ * handler runs on its own virtual thread, so a slow database parks cheap virtual threads instead of
+ * using up the container's pool. A fair semaphore in front of the handlers caps how many of them
+ * talk to the database at once (default: the connection pool size), so the extra concurrency queues
+ * here rather than in the pool; a request that can't get a permit in time is answered with 503.
+ *
+ * Virtual threads need Java 21 (build with -Pjava21). The executor is looked up reflectively so the
+ * regular Java 17 build still compiles; on an older JVM the mode falls back to a platform thread pool.
+ */
+public class RequestExecutor {
+    // On a worker thread, the flag of the request it is running: set by whichever of the worker
+    // (completing, or dispatching to a view) and the timeout finishes the request first
+    private static final ThreadLocal<AtomicBoolean> FINISHED = new ThreadLocal<>();
+
+    private static final RequestExecutor INSTANCE = new RequestExecutor(
+            Boolean.getBoolean("http.virtualThreads"),
+            Integer.getInteger("http.maxConcurrentRequests", Integer.getInteger("db.pool.maxSize", 20)),
+            Long.getLong("http.permitTimeoutMs", Long.getLong("db.pool.borrowTimeoutMs", 5_000L)),
+            Long.getLong("http.asyncTimeoutMs", 30_000L));
+
+    /** A servlet method body; the same shape as doGet/doPost. */
+    public interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long permitTimeoutMs;
+    private final long asyncTimeoutMs;
+
+    private final LongAdder offloaded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public RequestExecutor(boolean enabled, int maxConcurrent, long permitTimeoutMs, long asyncTimeoutMs) {
+        ExecutorService virtualThreads = enabled ? newVirtualThreadExecutor() : null;
+        if (enabled && virtualThreads == null) {
+            System.err.println("http.virtualThreads=true but this JVM (" + Runtime.version() + ") has no virtual threads; "
+                    + "offloading to platform threads instead");
+            this.executor = Executors.newCachedThreadPool(new WorkerFactory());
+        } else {
+            this.executor = virtualThreads;
+        }
+        this.virtual = virtualThreads != null;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.permitTimeoutMs = permitTimeoutMs;
+        this.asyncTimeoutMs = asyncTimeoutMs;
+    }
+
+    public static RequestExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs the handler inline, or, when offloading is on, on a worker thread inside an async context
+     * that is completed when the handler returns (unless it dispatched to a view with forward()).
+     */
+    public void execute(HttpServletRequest request, HttpServletResponse response, Handler handler) throws ServletException, IOException {
+        if (executor == null || request.isAsyncStarted() || !request.isAsyncSupported()) {
+            handler.handle(request, response);
+            return;
+        }
+        AsyncContext ctx = request.startAsync(request, response);
+        ctx.setTimeout(asyncTimeoutMs);
+        // Set by whichever finishes the request first: the worker, or the timeout answering 503
+        AtomicBoolean finished = new AtomicBoolean();
+        ctx.addListener(new AsyncListener() {
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (finished.compareAndSet(false, true)) {
+                    timedOut.increment();
+                    HttpServletResponse timedOutResponse = (HttpServletResponse) event.getAsyncContext().getResponse();
+                    timedOutResponse.setHeader("Retry-After", "1");
+                    timedOutResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    event.getAsyncContext().complete();
+                }
+            }
+            public void onError(AsyncEvent event) {
+                finished.set(true);
+            }
+            public void onComplete(AsyncEvent event) {
+            }
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        ReadConsistency.Scope consistency = ReadConsistency.current();
+        try {
+            executor.execute(() -> {
+                ReadConsistency.bind(consistency);
+                try {
+                    runOffloaded(ctx, finished, request, response, handler);
+                } finally {
+                    ReadConsistency.end();
+                }
+            });
+            offloaded.increment();
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            finished.set(true);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            ctx.complete();
+        }
+    }
+
+    // Once the timeout has answered (finished is set) the response belongs to the container: the
+    // worker then writes nothing more and leaves completion alone. A handler already running can't
+    // be stopped, so its own late writes may still fail quietly
+    private void runOffloaded(AsyncContext ctx, AtomicBoolean finished, HttpServletRequest request, HttpServletResponse response, Handler handler) {
+        boolean acquired = false;
+        FINISHED.set(finished);
+        try {
+            acquired = permits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS);
+            if (finished.get()) {
+                return;
+            }
+            if (!acquired) {
+                rejected.increment();
+                response.setHeader("Retry-After", "1");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            handler.handle(request, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (!finished.get() && !response.isCommitted()) {
+                try {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } catch (IOException ignored) {
+                    // Client went away
+                }
+            }
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+            FINISHED.remove();
+            if (finished.compareAndSet(false, true)) {
+                ctx.complete();
+            }
+        }
+    }
+
+    /**
+     * Renders a view (path relative to the context root, e.g. "views/tasks/list.jsp"). Offloaded
+     * requests are dispatched back to the container, which renders the JSP and completes the request.
+     */
+    public static void forward(HttpServletRequest request, HttpServletResponse response, String path) throws ServletException, IOException {
+        AtomicBoolean finished = FINISHED.get();
+        if (finished == null) {
+            request.getRequestDispatcher(path).forward(request, response);
+        } else if (finished.compareAndSet(false, true)) {
+            request.getAsyncContext().dispatch(path.startsWith("/") ? path : "/" + path);
+        }
+        // Otherwise the request timed out and was answered with 503; there is nothing left to render into
+    }
+
+    public boolean isEnabled() { return executor != null; }
+    public boolean isVirtual() { return virtual; }
+    public int getMaxConcurrent() { return maxConcurrent; }
+    public int getActiveCount() { return maxConcurrent - permits.availablePermits(); }
+    public int getWaitingCount() { return permits.getQueueLength(); }
+    public long getOffloadedCount() { return offloaded.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getTimedOutCount() { return timedOut.sum(); }
+
+    public String describe() {
+        if (executor == null) {
+            return "container threads";
+        }
+        return (virtual ? "virtual threads" : "platform threads") + ", at most " + maxConcurrent + " concurrent";
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() is Java 21+; null when it isn't there
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "request-worker-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
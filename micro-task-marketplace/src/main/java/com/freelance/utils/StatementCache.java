@@ -0,0 +1,221 @@
+package com.freelance.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepared statements of one physical connection, kept open across borrows and keyed by SQL and
+ * prepare options, least recently used evicted first. Closing a cached statement only resets it
+ * (parameters, batch, fetch size, open result sets) and hands it back to the cache; if the same SQL
+ * is prepared again while the cached one is still open, the caller gets a plain uncached statement.
+ *
+ * Only touched by the thread that currently holds the connection, so it is not synchronized.
+ */
+class StatementCache {
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, Cached> statements;
+
+    StatementCache(int maxSize, LongAdder hits, LongAdder misses) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Handles the prepareStatement overloads the DAOs use: (sql), (sql, autoGeneratedKeys) and
+     * (sql, resultSetType, resultSetConcurrency). Returns null for anything else, which the caller
+     * then prepares directly.
+     */
+    PreparedStatement prepare(Connection physical, Connection lease, Object[] args) throws SQLException {
+        if (args == null || !(args[0] instanceof String) || args.length > 3
+                || (args.length > 1 && !(args[1] instanceof Integer))) {
+            return null;
+        }
+        String sql = (String) args[0];
+        String key = args.length == 1 ? sql : args.length == 2 ? args[1] + "|" + sql : args[1] + "," + args[2] + "|" + sql;
+        Cached cached = statements.get(key);
+        if (cached != null && cached.handle != null) {
+            misses.increment();
+            return null;
+        }
+        if (cached == null) {
+            misses.increment();
+            PreparedStatement physicalStatement;
+            if (args.length == 1) {
+                physicalStatement = physical.prepareStatement(sql);
+            } else if (args.length == 2) {
+                physicalStatement = physical.prepareStatement(sql, (Integer) args[1]);
+            } else {
+                physicalStatement = physical.prepareStatement(sql, (Integer) args[1], (Integer) args[2]);
+            }
+            cached = new Cached(physicalStatement);
+            statements.put(key, cached);
+        } else {
+            hits.increment();
+        }
+        return cached.checkOut(lease);
+    }
+
+    /** The borrower is done with the connection: statements it left open are closed (reset) for it. */
+    void release() {
+        for (Cached cached : new ArrayList<>(statements.values())) {
+            if (cached.handle != null) {
+                cached.reset();
+            }
+        }
+    }
+
+    private final class Cached {
+        final PreparedStatement statement;
+        final int defaultFetchSize;
+        // The current borrower's view of the statement; null while it sits in the cache
+        Handle handle;
+        boolean evicted;
+        // Settings changed and result sets handed out during this checkout, undone on close;
+        // only what was touched is reset, since e.g. setQueryTimeout is a round trip on some drivers
+        boolean fetchSizeSet;
+        boolean maxRowsSet;
+        boolean queryTimeoutSet;
+        final List<ResultSet> results = new ArrayList<>(1);
+
+        Cached(PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.defaultFetchSize = statement.getFetchSize();
+        }
+
+        PreparedStatement checkOut(Connection lease) {
+            handle = new Handle(this, lease);
+            return handle.proxy;
+        }
+
+        void reset() {
+            handle.closed = true;
+            handle = null;
+            try {
+                for (ResultSet rs : results) {
+                    rs.close();
+                }
+                results.clear();
+                if (evicted) {
+                    statement.close();
+                    return;
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                if (fetchSizeSet) {
+                    statement.setFetchSize(defaultFetchSize);
+                    fetchSizeSet = false;
+                }
+                if (maxRowsSet) {
+                    statement.setMaxRows(0);
+                    maxRowsSet = false;
+                }
+                if (queryTimeoutSet) {
+                    statement.setQueryTimeout(0);
+                    queryTimeoutSet = false;
+                }
+            } catch (SQLException e) {
+                // Broken statement: drop it; the next prepare makes a new one
+                statements.values().remove(this);
+                closeQuietly();
+            }
+        }
+
+        void evict() {
+            evicted = true;
+            if (handle == null) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    // One per checkout, like the pool's Lease: a handle that was closed can't touch the next user's statement
+    private static final class Handle implements InvocationHandler {
+        final Cached cached;
+        final Connection lease;
+        final PreparedStatement proxy;
+        boolean closed;
+
+        Handle(Cached cached, Connection lease) {
+            this.cached = cached;
+            this.lease = lease;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        cached.reset();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.statement.isClosed();
+                case "getConnection":
+                    return lease;
+                case "equals":
+                    return p == args[0];
+                case "hashCode":
+                    return System.identityHashCode(p);
+                case "toString":
+                    return "Cached" + cached.statement;
+                case "setFetchSize":
+                    cached.fetchSizeSet = true;
+                    break;
+                case "setMaxRows":
+                    cached.maxRowsSet = true;
+                    break;
+                case "setQueryTimeout":
+                    cached.queryTimeoutSet = true;
+                    break;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            Object result;
+            try {
+                result = method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                cached.results.add((ResultSet) result);
+            }
+            return result;
+        }
+    }
+}
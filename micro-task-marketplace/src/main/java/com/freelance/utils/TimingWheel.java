@@ -0,0 +1,125 @@
+package com.freelance.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Level 0 has 64 slots of tickMs each; every further level has 64 slots
+ * as wide as the whole level below, and levels are added as far-off entries need them (with a 1 s
+ * tick, five levels reach 34 years). Scheduling is O(1); advancing the clock by one tick drains one
+ * level-0 slot and, every 64 ticks, moves a higher-level slot down a level. Entries fire at the end
+ * of their tick, so never early and at most tickMs late.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class TimingWheel<T> {
+    private static final int SLOTS = 64;
+
+    private final long tickMs;
+    private final List<Level<T>> levels = new ArrayList<>();
+    private long currentTime;
+    private int size;
+
+    private static final class Entry<T> {
+        final T item;
+        final long expiresAt;
+
+        Entry(T item, long expiresAt) {
+            this.item = item;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Level<T> {
+        final long tickMs;
+        final long spanMs;
+        final List<List<Entry<T>>> slots = new ArrayList<>(SLOTS);
+
+        Level(long tickMs) {
+            this.tickMs = tickMs;
+            this.spanMs = tickMs * SLOTS;
+            for (int i = 0; i < SLOTS; i++) {
+                slots.add(new ArrayList<>());
+            }
+        }
+
+        List<Entry<T>> slotFor(long time) {
+            return slots.get((int) ((time / tickMs) % SLOTS));
+        }
+    }
+
+    public TimingWheel(long tickMs, long startMs) {
+        this.tickMs = tickMs;
+        this.currentTime = startMs - startMs % tickMs;
+        levels.add(new Level<>(tickMs));
+    }
+
+    /** Schedules item for expiresAt; returns false, without scheduling, if that time has already passed. */
+    public boolean schedule(T item, long expiresAt) {
+        if (expiresAt < currentTime) {
+            return false;
+        }
+        place(new Entry<>(item, expiresAt));
+        size++;
+        return true;
+    }
+
+    /** Moves the clock forward to now, handing every item whose time has come to expired. */
+    public void advance(long now, Consumer<T> expired) {
+        if (size == 0) {
+            currentTime = Math.max(currentTime, now - now % tickMs);
+            return;
+        }
+        while (currentTime + tickMs <= now) {
+            List<Entry<T>> due = levels.get(0).slotFor(currentTime);
+            currentTime += tickMs;
+            for (Entry<T> entry : due) {
+                size--;
+                expired.accept(entry.item);
+            }
+            due.clear();
+            // Slots of higher levels that start now move down to finer levels
+            for (int i = levels.size() - 1; i > 0; i--) {
+                Level<T> level = levels.get(i);
+                if (currentTime % level.tickMs == 0) {
+                    List<Entry<T>> slot = level.slotFor(currentTime);
+                    if (!slot.isEmpty()) {
+                        List<Entry<T>> moving = new ArrayList<>(slot);
+                        slot.clear();
+                        for (Entry<T> entry : moving) {
+                            place(entry);
+                        }
+                    }
+                }
+            }
+            if (size == 0) {
+                currentTime = Math.max(currentTime, now - now % tickMs);
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    // Puts the entry in the finest level whose window (from the current time) covers it
+    private void place(Entry<T> entry) {
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                levels.add(new Level<>(levels.get(i - 1).spanMs));
+            }
+            Level<T> level = levels.get(i);
+            long base = currentTime - currentTime % level.tickMs;
+            if (entry.expiresAt < base + level.spanMs) {
+                level.slotFor(entry.expiresAt).add(entry);
+                return;
+            }
+        }
+    }
+}
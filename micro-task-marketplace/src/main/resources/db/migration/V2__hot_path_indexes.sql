@@ -0,0 +1,17 @@
+-- Indexes for the DAO hot paths. Each one matches a WHERE + ORDER BY so the rows come
+-- back already in order (no filesort) and only the matching range is read.
+-- Task listings sort newest first, so those indexes are declared DESC to match.
+
+-- MessageDAO chat history / since-cursor: WHERE task_id = ? [AND msg_id > ?] ORDER BY msg_id
+CREATE INDEX idx_messages_task_msg ON messages (task_id, msg_id);
+
+-- TaskDAO.getTasksPage with a status filter: WHERE status = ? ORDER BY created_at DESC, task_id DESC
+CREATE INDEX idx_tasks_status_created ON tasks (status, created_at DESC, task_id DESC);
+
+-- TaskDAO.getAllTasks / unfiltered pages: ORDER BY created_at DESC, task_id DESC
+CREATE INDEX idx_tasks_created ON tasks (created_at DESC, task_id DESC);
+
+-- Bids per task, cheapest first
+CREATE INDEX idx_applications_task_bid ON applications (task_id, bid_amount);
+
+-- users(email) is already UNIQUE, which is what UserDAO.loginUser probes
@@ -0,0 +1,3 @@
+-- Optimistic concurrency for LedgerService: every balance change bumps version and is
+-- only applied if the version it read is still current.
+ALTER TABLE wallet ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,13 @@
+-- users.rating becomes a cached average maintained from a running sum and count, so profile
+-- reads stay a primary-key lookup instead of AVG() over reviews.
+ALTER TABLE users ADD COLUMN rating_sum INT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN rating_count INT NOT NULL DEFAULT 0;
+
+-- Reviews of a user, newest first
+CREATE INDEX idx_reviews_reviewed ON reviews (reviewed_id, review_id);
+
+-- One-time backfill from reviews written before this migration
+UPDATE users SET
+    rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM reviews r WHERE r.reviewed_id = users.id),
+    rating_count = (SELECT COUNT(*) FROM reviews r WHERE r.reviewed_id = users.id);
+UPDATE users SET rating = rating_sum * 1.0 / rating_count WHERE rating_count > 0;
@@ -0,0 +1,19 @@
+-- One review per reviewer per task. Reviews that repeat an earlier one by the same reviewer for the
+-- same task are moved to reviews_duplicates (kept for whoever wants to look at them), not deleted.
+CREATE TABLE IF NOT EXISTS reviews_duplicates AS SELECT * FROM reviews WHERE 1 = 0;
+
+INSERT INTO reviews_duplicates
+SELECT * FROM reviews WHERE task_id IS NOT NULL
+    AND review_id NOT IN (SELECT keep_id FROM (
+        SELECT MIN(review_id) AS keep_id FROM reviews WHERE task_id IS NOT NULL GROUP BY task_id, reviewer_id) k)
+    AND review_id NOT IN (SELECT review_id FROM reviews_duplicates);
+
+DELETE FROM reviews WHERE review_id IN (SELECT review_id FROM reviews_duplicates);
+
+CREATE UNIQUE INDEX uq_reviews_task_reviewer ON reviews (task_id, reviewer_id);
+
+-- The moved reviews no longer count towards the reviewed user's rating
+UPDATE users SET
+    rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM reviews r WHERE r.reviewed_id = users.id),
+    rating_count = (SELECT COUNT(*) FROM reviews r WHERE r.reviewed_id = users.id);
+UPDATE users SET rating = CASE WHEN rating_count > 0 THEN rating_sum * 1.0 / rating_count ELSE 0 END;
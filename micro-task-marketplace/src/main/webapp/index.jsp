@@ -1,7 +1,8 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
 <%@ page import="com.freelance.models.User" %>
+<%@ page import="com.freelance.utils.CurrentUser" %>
 <%
-    User user = (User) session.getAttribute("user");
+    User user = CurrentUser.get(request);
 %>
 <html>
 <head>
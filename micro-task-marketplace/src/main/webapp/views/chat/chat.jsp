@@ -1,7 +1,8 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
 <%@ page import="com.freelance.models.User" %>
+<%@ page import="com.freelance.utils.CurrentUser" %>
 <%
-    User user = (User) session.getAttribute("user");
+    User user = CurrentUser.get(request);
     if (user == null) {
         response.sendRedirect("../auth/login.jsp");
         return;
@@ -48,20 +49,39 @@
         const receiverId = <%= receiverId %>;
         const currentUserId = <%= user.getId() %>;
 
+        let lastMsgId = 0;
+
+        function appendMessages(data) {
+            if (data.length === 0) return;
+            const chatBox = document.getElementById('chat-box');
+            data.forEach(msg => {
+                if (msg.msgId <= lastMsgId) return;
+                const div = document.createElement('div');
+                div.className = 'message ' + (msg.senderId === currentUserId ? 'sent' : 'received');
+                div.innerHTML = '<div>' + msg.message + '</div><div class="meta">' + msg.senderName + '</div>';
+                chatBox.appendChild(div);
+                lastMsgId = msg.msgId;
+            });
+            chatBox.scrollTop = chatBox.scrollHeight;
+        }
+
+        // Only asks for messages newer than the last one rendered and appends them.
         function loadMessages() {
-            fetch('../../chat?taskId=' + taskId)
+            return fetch('../../chat?taskId=' + taskId + '&since=' + lastMsgId)
+                .then(response => response.json())
+                .then(appendMessages);
+        }
+
+        // Long-poll: the server holds the request until a new message arrives (or ~25s pass),
+        // then we immediately ask again. Falls back to a 3 second retry on errors.
+        function waitForMessages() {
+            fetch('../../chat?taskId=' + taskId + '&since=' + lastMsgId + '&wait=true')
                 .then(response => response.json())
                 .then(data => {
-                    const chatBox = document.getElementById('chat-box');
-                    chatBox.innerHTML = '';
-                    data.forEach(msg => {
-                        const div = document.createElement('div');
-                        div.className = 'message ' + (msg.senderId === currentUserId ? 'sent' : 'received');
-                        div.innerHTML = '<div>' + msg.message + '</div><div class="meta">' + msg.senderName + '</div>';
-                        chatBox.appendChild(div);
-                    });
-                    chatBox.scrollTop = chatBox.scrollHeight;
-                });
+                    appendMessages(data);
+                    waitForMessages();
+                })
+                .catch(() => setTimeout(waitForMessages, 3000));
         }
 
         function sendMessage() {
@@ -75,13 +95,10 @@
                 body: 'taskId=' + taskId + '&receiverId=' + receiverId + '&message=' + encodeURIComponent(text)
             }).then(() => {
                 input.value = '';
-                loadMessages();
             });
         }
 
-        // Poll every 3 seconds
-        setInterval(loadMessages, 3000);
-        loadMessages();
+        loadMessages().finally(waitForMessages);
     </script>
 </body>
 </html>
@@ -1,13 +1,18 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ page import="com.freelance.models.Application" %>
+<%@ page import="com.freelance.models.BidStats" %>
 <%@ page import="com.freelance.models.Task" %>
 <%@ page import="com.freelance.models.User" %>
+<%@ page import="com.freelance.utils.CurrentUser" %>
+<%@ page import="com.freelance.utils.Html" %>
 <%
     Task task = (Task) request.getAttribute("task");
-    User user = (User) session.getAttribute("user");
+    BidStats bids = (BidStats) request.getAttribute("bidStats");
+    User user = CurrentUser.get(request);
 %>
 <html>
 <head>
-    <title><%= task.getTitle() %> - MicroTask</title>
+    <title><%= Html.escape(task.getTitle()) %> - MicroTask</title>
     <link rel="stylesheet" href="css/style.css"> <!-- Path relative to servlet forward? No, usually relative to context root or absolute -->
     <!-- Since we forward from servlet /tasks, relative paths might be tricky. Let's use absolute context path or ../../ -->
     <link rel="stylesheet" href="css/style.css">
@@ -18,15 +23,17 @@
         .header { border-bottom: 1px solid #eee; padding-bottom: 1rem; margin-bottom: 1rem; }
         .budget { font-size: 1.5rem; color: #4f46e5; font-weight: bold; }
         .meta { color: #6b7280; margin-bottom: 1rem; }
+        .bids { display: flex; gap: 1.5rem; color: #374151; margin-bottom: 1rem; }
+        .bids strong { display: block; font-size: 1.25rem; color: #111827; }
         .btn { background: #4f46e5; color: white; padding: 0.75rem 1.5rem; text-decoration: none; border-radius: 0.5rem; display: inline-block; }
     </style>
 </head>
 <body>
     <div class="container">
         <div class="header">
-            <h1><%= task.getTitle() %></h1>
+            <h1><%= Html.escape(task.getTitle()) %></h1>
             <div class="meta">
-                Posted by <%= task.getClientName() %> • Due <%= task.getDeadline() %>
+                Posted by <%= Html.escape(task.getClientName()) %> • Due <%= task.getDeadline() %>
             </div>
         </div>
         
@@ -38,10 +45,30 @@
         </div>
 
         <h3>Description</h3>
-        <p style="line-height: 1.6; color: #374151;"><%= task.getDescription() %></p>
+        <p style="line-height: 1.6; color: #374151;"><%= Html.escape(task.getDescription()) %></p>
 
         <h3>Required Skills</h3>
-        <p><%= task.getSkillsRequired() %></p>
+        <p><%= Html.escape(task.getSkillsRequired()) %></p>
+
+        <h3>Bids</h3>
+        <% if (bids == null || bids.getCount() == 0) { %>
+            <p style="color: #6b7280;">No applications yet.</p>
+        <% } else { %>
+            <div class="bids">
+                <div><strong><%= bids.getCount() %></strong>applicants</div>
+                <div><strong>$<%= String.format("%.2f", bids.getMin()) %></strong>lowest</div>
+                <div><strong>$<%= String.format("%.2f", bids.getMedian()) %></strong>median</div>
+                <div><strong>$<%= String.format("%.2f", bids.getAverage()) %></strong>average</div>
+            </div>
+            <% if (user != null && user.getId() == task.getClientId()) { %>
+                <h4>Lowest bids</h4>
+                <ul>
+                <% for (Application a : bids.getShortlist()) { %>
+                    <li><%= Html.escape(a.getFreelancerName()) %> – $<%= String.format("%.2f", a.getBidAmount()) %></li>
+                <% } %>
+                </ul>
+            <% } %>
+        <% } %>
 
         <div style="margin-top: 3rem; border-top: 1px solid #eee; padding-top: 2rem;">
             <% if(user != null && !user.getRole().equals("CLIENT")) { %>
@@ -1,7 +1,11 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ page import="java.net.URLEncoder" %>
+<%@ page import="java.nio.charset.StandardCharsets" %>
 <%@ page import="java.util.List" %>
 <%@ page import="com.freelance.models.Task" %>
 <%@ page import="com.freelance.models.User" %>
+<%@ page import="com.freelance.utils.CurrentUser" %>
+<%@ page import="com.freelance.utils.Html" %>
 <%
     List<Task> tasks = (List<Task>) request.getAttribute("tasks");
     // If accessed directly, redirect to servlet to load data
@@ -9,7 +13,13 @@
         response.sendRedirect("../../tasks?action=list");
         return;
     }
-    User user = (User) session.getAttribute("user");
+    User user = CurrentUser.get(request);
+    String nextCursor = (String) request.getAttribute("nextCursor");
+    String status = request.getParameter("status") != null ? request.getParameter("status") : "";
+    String minBudget = request.getParameter("minBudget") != null ? request.getParameter("minBudget") : "";
+    String maxBudget = request.getParameter("maxBudget") != null ? request.getParameter("maxBudget") : "";
+    String listUrl = request.getContextPath() + "/tasks";
+    String query = request.getParameter("q") != null ? request.getParameter("q") : "";
 %>
 <html>
 <head>
@@ -55,6 +65,8 @@
             <a href="create.jsp">Post Task</a>
             <a href="../../index.jsp">Home</a>
             <% if(user != null) { %>
+                <a href="<%= listUrl %>?action=matching">Matching My Skills</a>
+                <a href="<%= listUrl %>?action=recommended">Recommended</a>
                 <a href="../../auth?action=logout">Logout</a>
             <% } else { %>
                 <a href="../auth/login.jsp">Login</a>
@@ -64,6 +76,23 @@
 
     <div class="container">
         <h1>Available Tasks</h1>
+        <form action="<%= listUrl %>" method="get" style="display: flex; gap: 0.5rem; margin-bottom: 0.5rem;">
+            <input type="hidden" name="action" value="search">
+            <input type="text" name="q" placeholder="Search tasks..." value="<%= Html.escape(query) %>" style="flex: 1;">
+            <button type="submit" style="width: auto;">Search</button>
+        </form>
+        <form action="<%= listUrl %>" method="get" style="display: flex; gap: 0.5rem; margin-bottom: 1rem;">
+            <input type="hidden" name="action" value="list">
+            <select name="status">
+                <option value="" <%= status.isEmpty() ? "selected" : "" %>>Any status</option>
+                <% for (String s : new String[]{"OPEN", "ASSIGNED", "COMPLETED", "CLOSED"}) { %>
+                    <option value="<%= s %>" <%= s.equals(status) ? "selected" : "" %>><%= s %></option>
+                <% } %>
+            </select>
+            <input type="number" name="minBudget" step="0.01" placeholder="Min budget" value="<%= Html.escape(minBudget) %>">
+            <input type="number" name="maxBudget" step="0.01" placeholder="Max budget" value="<%= Html.escape(maxBudget) %>">
+            <button type="submit" style="width: auto;">Filter</button>
+        </form>
         <div class="task-list">
             <% if (tasks.isEmpty()) { %>
                 <p>No tasks available at the moment.</p>
@@ -86,6 +115,14 @@
                 </div>
             <% } } %>
         </div>
+        <% if (nextCursor != null) {
+            // Request values go back out URL-encoded, then HTML-escaped for the attribute
+            String nextUrl = listUrl + "?action=list&status=" + URLEncoder.encode(status, StandardCharsets.UTF_8)
+                    + "&minBudget=" + URLEncoder.encode(minBudget, StandardCharsets.UTF_8)
+                    + "&maxBudget=" + URLEncoder.encode(maxBudget, StandardCharsets.UTF_8)
+                    + "&cursor=" + URLEncoder.encode(nextCursor, StandardCharsets.UTF_8); %>
+            <a class="btn btn-secondary" href="<%= Html.escape(nextUrl) %>">Next page</a>
+        <% } %>
     </div>
 </body>
 </html>
@@ -0,0 +1,73 @@
+<%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ page import="java.util.List" %>
+<%@ page import="com.freelance.models.Review" %>
+<%@ page import="com.freelance.models.User" %>
+<%@ page import="com.freelance.utils.CurrentUser" %>
+<%@ page import="com.freelance.utils.Html" %>
+<%
+    User profile = (User) request.getAttribute("profile");
+    List<Review> reviews = (List<Review>) request.getAttribute("reviews");
+    User user = CurrentUser.get(request);
+    Integer reviewTaskId = (Integer) request.getAttribute("reviewTaskId");
+%>
+<html>
+<head>
+    <title><%= Html.escape(profile.getName()) %> - MicroTask</title>
+    <style>
+        body { font-family: sans-serif; background: #f3f4f6; padding: 2rem; }
+        .container { max-width: 800px; margin: 0 auto; background: white; padding: 2rem; border-radius: 1rem; box-shadow: 0 4px 6px rgba(0,0,0,0.1); }
+        .rating { font-size: 1.5rem; color: #4f46e5; font-weight: bold; }
+        .meta { color: #6b7280; margin-bottom: 1rem; }
+        .review { border-top: 1px solid #eee; padding: 1rem 0; }
+        .btn { background: #4f46e5; color: white; padding: 0.5rem 1rem; border: none; border-radius: 0.5rem; cursor: pointer; }
+    </style>
+</head>
+<body>
+    <div class="container">
+        <h1><%= Html.escape(profile.getName()) %></h1>
+        <div class="meta"><%= profile.getRole() %><%= profile.getSkills() != null ? " • " + Html.escape(profile.getSkills()) : "" %></div>
+        <% if (profile.getRatingCount() > 0) { %>
+            <div class="rating"><%= String.format("%.2f", profile.getRating()) %> / 5</div>
+            <div class="meta"><%= profile.getRatingCount() %> review<%= profile.getRatingCount() == 1 ? "" : "s" %></div>
+        <% } else { %>
+            <div class="meta">No reviews yet.</div>
+        <% } %>
+        <% if (profile.getBio() != null) { %>
+            <p style="line-height: 1.6; color: #374151;"><%= Html.escape(profile.getBio()) %></p>
+        <% } %>
+
+        <% if (user != null && user.getId() == profile.getId()) { %>
+            <h3>Edit profile</h3>
+            <form action="auth" method="post">
+                <input type="hidden" name="action" value="updateProfile">
+                <input type="text" name="name" value="<%= Html.escape(profile.getName()) %>" style="width: 100%; margin-bottom: 0.5rem;">
+                <input type="text" name="skills" value="<%= Html.escape(profile.getSkills()) %>" placeholder="Skills, comma separated" style="width: 100%; margin-bottom: 0.5rem;">
+                <textarea name="bio" rows="3" style="width: 100%; margin-bottom: 0.5rem;"><%= Html.escape(profile.getBio()) %></textarea>
+                <button type="submit" class="btn">Save</button>
+            </form>
+        <% } else if (user != null && reviewTaskId != null) { %>
+            <h3>Leave a review</h3>
+            <form action="reviews" method="post">
+                <input type="hidden" name="taskId" value="<%= reviewTaskId %>">
+                <input type="hidden" name="reviewedId" value="<%= profile.getId() %>">
+                <select name="rating">
+                    <% for (int r = 5; r >= 1; r--) { %>
+                        <option value="<%= r %>"><%= r %></option>
+                    <% } %>
+                </select>
+                <input type="text" name="comment" placeholder="How did it go?" style="width: 60%;">
+                <button type="submit" class="btn">Submit</button>
+            </form>
+        <% } %>
+
+        <h3>Recent reviews</h3>
+        <% for (Review r : reviews) { %>
+            <div class="review">
+                <strong><%= r.getRating() %>/5</strong> from <%= Html.escape(r.getReviewerName()) %>
+                <div style="color: #374151;"><%= Html.escape(r.getComment()) %></div>
+            </div>
+        <% } %>
+        <a href="tasks?action=list" style="color: #6b7280; text-decoration: none;">Back to Tasks</a>
+    </div>
+</body>
+</html>